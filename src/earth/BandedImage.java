@@ -0,0 +1,162 @@
+package earth;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.Vector;
+
+/**
+ * An RGB image that is rendered a band of rows at a time as it is read, e.g. by an ImageIO writer, so that only
+ * one band is ever held in memory however large the image is
+ */
+public class BandedImage implements RenderedImage {
+
+    public interface BandRenderer {
+        /**
+         * Renders rows [y0, y1) into pixels as packed RGB with a stride of the image width
+         */
+        void renderBand(int y0, int y1, int[] pixels);
+    }
+
+    private static final int[] MASKS = {0xFF0000, 0xFF00, 0xFF};
+
+    private final int width;
+    private final int height;
+    private final int bandHeight;
+    private final BandRenderer renderer;
+    private final ColorModel colorModel = new DirectColorModel(24, MASKS[0], MASKS[1], MASKS[2]);
+
+    private int cachedBand = -1;
+    private WritableRaster cachedRaster;
+
+    public BandedImage(int width, int height, int bandHeight, BandRenderer renderer) {
+        this.width = width;
+        this.height = height;
+        this.bandHeight = Math.min(bandHeight, height);
+        this.renderer = renderer;
+    }
+
+    @Override
+    public synchronized Raster getTile(int tileX, int tileY) {
+        if (tileY != cachedBand) {
+            int y0 = tileY * bandHeight;
+            int y1 = Math.min(y0 + bandHeight, height);
+            int[] pixels = new int[width * (y1 - y0)];
+            renderer.renderBand(y0, y1, pixels);
+            cachedRaster = Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length), width, y1 - y0, width,
+                    MASKS, new Point(0, y0));
+            cachedBand = tileY;
+        }
+        return cachedRaster;
+    }
+
+    @Override
+    public Raster getData(Rectangle rect) {
+        WritableRaster raster = colorModel.createCompatibleWritableRaster(rect.width, rect.height)
+                .createWritableTranslatedChild(rect.x, rect.y);
+        copyData(raster);
+        return raster;
+    }
+
+    @Override
+    public Raster getData() {
+        return getData(new Rectangle(0, 0, width, height));
+    }
+
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            raster = colorModel.createCompatibleWritableRaster(width, height);
+        }
+        Rectangle bounds = raster.getBounds().intersection(new Rectangle(0, 0, width, height));
+        for (int band = bounds.y / bandHeight; band * bandHeight < bounds.y + bounds.height; band++) {
+            // Copies the part of the band that overlaps the raster
+            raster.setRect(getTile(0, band));
+        }
+        return raster;
+    }
+
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return Image.UndefinedProperty;
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    @Override
+    public ColorModel getColorModel() {
+        return colorModel;
+    }
+
+    @Override
+    public SampleModel getSampleModel() {
+        return colorModel.createCompatibleSampleModel(width, bandHeight);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getMinX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public int getNumXTiles() {
+        return 1;
+    }
+
+    @Override
+    public int getNumYTiles() {
+        return (height + bandHeight - 1) / bandHeight;
+    }
+
+    @Override
+    public int getMinTileX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinTileY() {
+        return 0;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return width;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return bandHeight;
+    }
+
+    @Override
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    @Override
+    public int getTileGridYOffset() {
+        return 0;
+    }
+}
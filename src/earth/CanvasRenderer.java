@@ -6,4 +6,20 @@ public interface CanvasRenderer {
 
     void render(Graphics g);
     void render(Graphics g, double dt, boolean recordMode);
+
+    /**
+     * Creates a buffer that frames can be rendered into with {@link #renderFrame(FrameBuffer, double)}
+     */
+    FrameBuffer createFrameBuffer();
+
+    /**
+     * Advances time by dt milliseconds and renders the next frame into the supplied buffer without drawing
+     * anything to the screen. This may be called on a different thread to {@link #present(Graphics, FrameBuffer)}.
+     */
+    void renderFrame(FrameBuffer frame, double dt);
+
+    /**
+     * Draws a frame previously produced by {@link #renderFrame(FrameBuffer, double)}
+     */
+    void present(Graphics g, FrameBuffer frame);
 }
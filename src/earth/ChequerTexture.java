@@ -3,19 +3,59 @@ package earth;
 import java.awt.image.BufferedImage;
 import java.time.OffsetDateTime;
 
+/**
+ * A black and white chequer board shown in place of images that haven't loaded yet. Each square is a single texel
+ * so all the chequer textures share one tiny texture, whatever size the real textures are.
+ */
 public class ChequerTexture implements Texture {
 
-    private final BufferedImage texture;
+    private static final int DIVISIONS = 8;
+
+    private static final MipMap MIP_MAP = createMipMap();
+
+    // Shared by all the chequer textures as they look the same
+    private static volatile BufferedImage preview;
+
     private final OffsetDateTime dateTime;
 
-    public ChequerTexture(BufferedImage texture, OffsetDateTime dateTime) {
-        this.texture = texture;
+    public ChequerTexture(OffsetDateTime dateTime) {
         this.dateTime = dateTime;
     }
 
+    private static MipMap createMipMap() {
+        int[] squares = new int[DIVISIONS * DIVISIONS];
+        for (int y = 0; y < DIVISIONS; y++) {
+            for (int x = 0; x < DIVISIONS; x++) {
+                squares[y * DIVISIONS + x] = ((x + y) & 1) == 0 ? 0 : 0xffffff;
+            }
+        }
+        return new MipMap(squares, DIVISIONS, DIVISIONS, TexelBuffer.Format.CONFIGURED, TexelBuffer.Layout.CONFIGURED);
+    }
+
+    private static BufferedImage createPreview(int width, int height) {
+        BufferedImage preview = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = Rasters.getPixels(preview);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = MIP_MAP.getRGB((double) x / width, (double) y / height, 0);
+            }
+        }
+        return preview;
+    }
+
+    @Override
+    public BufferedImage getPreview(int width, int height) {
+        BufferedImage preview = ChequerTexture.preview;
+        if (preview == null || preview.getWidth() != width || preview.getHeight() != height) {
+            preview = createPreview(width, height);
+            ChequerTexture.preview = preview;
+        }
+        return preview;
+    }
+
     @Override
-    public BufferedImage getTexture() {
-        return texture;
+    public MipMap getMipMap() {
+        return MIP_MAP;
     }
 
     @Override
@@ -37,8 +37,7 @@ public class EarthImageLoader {
     public BufferedImage loadImage(ImageMetadata im) {
         String pngFilename = im.image() + ".png";
         OffsetDateTime imageDate = im.date();
-        File dateTimeDir = new File(IMAGES_FOLDER, DATE_FORMATTER.format(imageDate));
-        File pngFile = new File(dateTimeDir, pngFilename);
+        File pngFile = getImageFile(im);
         if (!pngFile.exists()) {
             try {
                 downloadImage(pngFile, DSCOVR_ARCHIVE + DATE_FORMATTER2.format(imageDate) + "/png/" + pngFilename);
@@ -48,13 +47,29 @@ public class EarthImageLoader {
         }
         try {
             System.out.println("Loading png " + pngFile);
-            return ImageIO.read(pngFile);
+            return Rasters.toIntRGB(ImageIO.read(pngFile));
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Error loading image: " + pngFilename);
         }
     }
 
+    /**
+     * The file that the source image is downloaded to
+     */
+    public static File getImageFile(ImageMetadata im) {
+        File dateTimeDir = new File(IMAGES_FOLDER, DATE_FORMATTER.format(im.date()));
+        return new File(dateTimeDir, im.image() + ".png");
+    }
+
+    /**
+     * The file that the texture of the given size reprojected from an image is stored in, see {@link TextureStore}
+     */
+    public static File getTextureFile(ImageMetadata im, int width, int height) {
+        File dateTimeDir = new File(IMAGES_FOLDER, DATE_FORMATTER.format(im.date()));
+        return new File(dateTimeDir, im.image() + "." + width + "x" + height + ".texture");
+    }
+
     private void downloadImage(File pngFile, String url) throws Exception {
         URL urlObj = new URL(url);
         System.out.println("Downloading " + url);
@@ -3,33 +3,46 @@ package earth;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.awt.image.BufferedImage;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.IntStream;
 
 public class EarthRenderer implements CanvasRenderer, KeyListener {
 
 
-    public static final int WIDTH = 1024;
-    public static final int HEIGHT = 1024;
-
-    private static final double FOV = 0.62;
-    public static final double RAY_Z = Math.tan(Math.toRadians(90 - (FOV / 2)));
-
     public static final int MAX_TIME_SPEED = (int) Math.pow(2, 20);
 
-    private final BufferedImage canvas;
+    private static final boolean ADAPTIVE_RESOLUTION = Boolean.getBoolean("earthflow.adaptiveResolution");
+    private static final double TARGET_FPS = Double.parseDouble(System.getProperty("earthflow.targetFps", "30"));
+    private static final String RESOLUTION_SCALES = System.getProperty("earthflow.resolutionScales", "1,0.75,0.5");
+    private static final long FRAME_CACHE_MB = Long.getLong("earthflow.frameCache.mb", 256);
+    private static final long FRAME_CACHE_QUANTUM_MS = Long.getLong("earthflow.frameCache.quantumMs", 5000);
+    private static final RenderMode RENDER_MODE = RenderMode.valueOf(System.getProperty("earthflow.renderMode", "UV_LOOKUP"));
+    static final boolean MIPMAPS = Boolean.parseBoolean(System.getProperty("earthflow.mipmaps", "true"));
+    static final int SUPERSAMPLING = Integer.getInteger("earthflow.supersampling", 4);
+    static final boolean PREVIEWS = Boolean.parseBoolean(System.getProperty("earthflow.previews", "true"));
+    private static final boolean SUPERSAMPLING_GRADIENTS = Boolean.getBoolean("earthflow.supersampling.gradients");
+    private static final int SUPERSAMPLING_THRESHOLD = Integer.getInteger("earthflow.supersampling.threshold", 96);
+
+    private final int width;
+    private final int height;
+    private final double rayZ;
+
+    private final FrameBuffer canvas;
     private final Sphere sphere;
     private final EarthImageLoader loader;
     private final EarthTextureCache cache;
-
-    private Texture earthTexture1;
-    private Texture earthTexture2;
+    private final TileScheduler scheduler;
+    private final RayKernel rayKernel;
+    private final ResolutionScaler resolutionScaler;
+    private final Map<Double, RenderResolution> resolutions = new HashMap<>();
+    private final FrameCache frameCache;
+    private final EdgeSupersampler supersampler;
 
     private int frameCount = 0;
     private long lastFpsTime = System.currentTimeMillis();
@@ -44,7 +57,8 @@ public class EarthRenderer implements CanvasRenderer, KeyListener {
 
     private OffsetDateTime dateTime = OffsetDateTime.of(2023, 1, 19, 0, 3, 42, 0, ZoneOffset.UTC);
 
-    private int timeSpeed = 1;
+    // Changed by key presses on the event thread and read by the render thread
+    private volatile int timeSpeed = 1;
 
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private int fps;
@@ -53,20 +67,45 @@ public class EarthRenderer implements CanvasRenderer, KeyListener {
 
     private int offset = 0;
 
+    private volatile RenderMode renderMode = RENDER_MODE;
+
+    private volatile boolean adaptiveResolution = ADAPTIVE_RESOLUTION;
+    // Set on the event thread, the scaler is only touched by the render thread
+    private volatile boolean resetResolution;
+    private FrameCache.FrameKey lastFrameKey;
+
     public EarthRenderer() {
+        this(RenderSettings.fromSystemProperties());
+    }
 
-        canvas = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    public EarthRenderer(RenderSettings settings) {
+        this.width = settings.width();
+        this.height = settings.height();
+        this.rayZ = settings.rayZ();
 
-        double distance = Math.sqrt(Math.pow(513256.302301, 2) + Math.pow(-1132637.821089, 2) + Math.pow(-676524.885803, 2));
+        canvas = new FrameBuffer(width, height);
 
-        sphere = new Sphere(new Vector3D(0, 0, distance), 6378);
+        sphere = createSphere();
         loader = new EarthImageLoader();
 
         long startTime = System.currentTimeMillis();
 
         System.out.println("Loaded textures in " + (System.currentTimeMillis() - startTime) + " ms");
 
-        cache = new EarthTextureCache(sphere, loader);
+        // The direct mode never needs the textures so only build them once they're used
+        cache = new EarthTextureCache(sphere, loader, RENDER_MODE != RenderMode.DIRECT,
+                settings.textureWidth(), settings.textureHeight());
+        scheduler = new TileScheduler();
+        rayKernel = RayKernel.create();
+        resolutionScaler = new ResolutionScaler(TARGET_FPS, ResolutionScaler.parseScales(RESOLUTION_SCALES));
+        frameCache = new FrameCache(FRAME_CACHE_QUANTUM_MS, FRAME_CACHE_MB * 1024 * 1024);
+        supersampler = new EdgeSupersampler(SUPERSAMPLING, SUPERSAMPLING_GRADIENTS, SUPERSAMPLING_THRESHOLD);
+    }
+
+    static Sphere createSphere() {
+        double distance = Math.sqrt(Math.pow(513256.302301, 2) + Math.pow(-1132637.821089, 2) + Math.pow(-676524.885803, 2));
+
+        return new Sphere(new Vector3D(0, 0, distance), 6378);
     }
 
     @Override
@@ -79,72 +118,318 @@ public class EarthRenderer implements CanvasRenderer, KeyListener {
 
     @Override
     public void render(Graphics g, double dt, boolean recordMode) {
+        renderFrame(canvas, dt);
+        present(g, canvas);
+    }
+
+    @Override
+    public FrameBuffer createFrameBuffer() {
+        return new FrameBuffer(width, height);
+    }
+
+    @Override
+    public void renderFrame(FrameBuffer frame, double dt) {
+        long frameStartTime = System.nanoTime();
+        if (resetResolution) {
+            resetResolution = false;
+            resolutionScaler.reset();
+        }
 
         dt = 45;
 //        System.out.println(dt);
 
-        dateTime = dateTime.plus((int) (dt * timeSpeed), ChronoUnit.MILLIS);
+        long frameStepMillis = (long) (dt * timeSpeed);
+        dateTime = dateTime.plus(frameStepMillis, ChronoUnit.MILLIS);
 
+        // Read once so that the whole frame is rendered in the same mode if a key press changes it
+        RenderMode mode = renderMode;
+        // Build the textures in the background when switching from the direct mode to one that samples them
+        cache.setPrepareTextures(mode != RenderMode.DIRECT);
         cache.update(dateTime);
 
-        earthTexture1 = cache.getTextureBefore(dateTime);
-        earthTexture2 = cache.getTextureAfter(dateTime);
+        // Render at the start of the frame cache quantum so that the cached frame is the same whenever it is rendered
+        OffsetDateTime renderTime = frameCache.isEnabled()
+                ? frameCache.quantize(dateTime, Math.abs(frameStepMillis)) : dateTime;
 
-        g.setColor(new Color(123, 234, 12));
-        g.drawImage(canvas, 0, 0, null);
-        g.drawImage(earthTexture1.getTexture(), WIDTH, 0, 1000, 500, null);
-        g.drawImage(earthTexture2.getTexture(), WIDTH, 500, 1000, 500, null);
+        Texture earthTexture1 = cache.getTextureBefore(renderTime);
+        Texture earthTexture2 = cache.getTextureAfter(renderTime);
 
-        g.drawString("FPS: " + fps, 20, 20);
-        g.drawString(String.format("Date: " + DATE_TIME_FORMATTER.format(dateTime)), 20, 40);
-        g.drawString(String.format("Speed: " + timeSpeed), 20, 60);
-        g.drawString(String.format("Offset: " + offset), 20, 80);
-        g.drawString(cache.getStatus(), 20, 100);
-        g.drawString(String.format("Texture 1: " + earthTexture1.getDate()), 20, 120);
-        g.drawString(String.format("Texture 2: " + earthTexture2.getDate()), 20, 140);
+        double scale = adaptiveResolution ? resolutionScaler.getScale() : 1;
+        RenderResolution resolution = resolutions.computeIfAbsent(scale,
+                (s) -> new RenderResolution((int) Math.round(width * s), (int) Math.round(height * s), rayZ));
+
+        if (EarthTexture.TILES && mode != RenderMode.DIRECT) {
+            // Start tracing the tiles this frame shows, which are sampled from the coarse texture until they're done
+            GeometryContext geometry = GeometryContext.at(renderTime.toEpochSecond());
+            if (earthTexture1 instanceof EarthTexture tiled) {
+                tiled.prepareVisible(geometry);
+            }
+            if (earthTexture2 instanceof EarthTexture tiled) {
+                tiled.prepareVisible(geometry);
+            }
+        }
+
+        // Only frames of real images are worth caching, the placeholder is shown only until they load
+        FrameCache.FrameKey frameKey = null;
+        if (frameCache.isEnabled() && earthTexture1 instanceof EarthTexture && earthTexture2 instanceof EarthTexture) {
+            frameKey = new FrameCache.FrameKey(renderTime.toInstant().toEpochMilli(), earthTexture1.getDate(),
+                    earthTexture1.getVersion(), earthTexture2.getDate(), earthTexture2.getVersion(),
+                    resolution.getWidth(), resolution.getHeight(), sphere.radius, mode);
+        }
+
+        if (frameKey != null && frameCache.get(frameKey, frame)) {
+            if (frameKey.equals(lastFrameKey)) {
+                // Nothing has changed, e.g. while paused, so there's no point producing frames any faster than needed
+                waitForNextFrame(frameStartTime);
+            }
+        } else {
+            renderScene(frame, resolution, mode, renderTime, earthTexture1, earthTexture2);
+            if (frameKey != null) {
+                frameCache.put(frameKey, frame);
+            }
+            // Only rendered frames say anything about the resolution, cache hits are cheap and may wait
+            if (adaptiveResolution) {
+                resolutionScaler.update(System.nanoTime() - frameStartTime);
+            }
+        }
+        lastFrameKey = frameKey;
+        frame.setContents(resolution.getWidth(), resolution.getHeight(), dateTime, earthTexture1, earthTexture2);
+
+        frameCount++;
+        long time = System.currentTimeMillis();
+        if (time - lastFpsTime > 1000) {
+            fps = frameCount;
+            frameCount = 0;
+            lastFpsTime = time;
+        }
+    }
+
+    private void renderScene(FrameBuffer frame, RenderResolution resolution, RenderMode mode,
+                             OffsetDateTime renderTime, Texture earthTexture1, Texture earthTexture2) {
+        frame.setCacheKey(null);
 
-        sphere.update(dateTime);
+        sphere.update(renderTime);
 
-        long secondsSinceImage1 = ChronoUnit.SECONDS.between(earthTexture1.getDate(), dateTime);
+        long secondsSinceImage1 = ChronoUnit.SECONDS.between(earthTexture1.getDate(), renderTime);
         long secondsBetweenImages = ChronoUnit.SECONDS.between(earthTexture1.getDate(), earthTexture2.getDate());
         double blend = (double) secondsSinceImage1 / secondsBetweenImages;
 
-        // Render sphere using generated earth texture
-        IntStream.range(0, WIDTH).parallel().forEach((x) -> {
-//        for (int x = 0; x < WIDTH; x++) {
-            for (int y = 0; y < HEIGHT; y++) {
-                // Reset the colour of each pixel
-                canvas.setRGB(x, y, 0);
+        SpanTable spanTable = resolution.getSpanTable();
+        if (!spanTable.isValid(sphere.radius)) {
+            spanTable.build(sphere, camera);
+        }
+        FootprintTable footprintTable = resolution.getFootprintTable();
+        if (!footprintTable.isValid(sphere.radius)) {
+            footprintTable.build(sphere, camera);
+        }
+        frame.clearBackground(spanTable);
+
+        EdgeSupersampler.SurfaceShader shader;
+        if (mode == RenderMode.DIRECT && earthTexture1 instanceof EarthTexture image1
+                && earthTexture2 instanceof EarthTexture image2) {
+            shader = getSourceShader(image1.getEarthImage(), image2.getEarthImage(), blend);
+            renderDirect(frame, resolution, shader);
+        } else if (mode == RenderMode.DIRECT && earthTexture1 instanceof EarthTexture image1) {
+            // Show the loaded image on its own rather than building its texture to blend with the placeholder
+            shader = getSourceShader(image1.getEarthImage(), image1.getEarthImage(), 0);
+            renderDirect(frame, resolution, shader);
+        } else if (mode == RenderMode.DIRECT && earthTexture2 instanceof EarthTexture image2) {
+            shader = getSourceShader(image2.getEarthImage(), image2.getEarthImage(), 0);
+            renderDirect(frame, resolution, shader);
+        } else if (mode != RenderMode.RAY_TRACE) {
+            renderUVLookup(frame, resolution, renderTime, earthTexture1, earthTexture2, blend);
+            shader = getTextureShader(earthTexture1, earthTexture2, blend);
+        } else {
+            renderRayTrace(frame, resolution, earthTexture1, earthTexture2, blend);
+            shader = getTextureShader(earthTexture1, earthTexture2, blend);
+        }
 
-                double x3d = (double) x / (WIDTH / 2.0) - 1;
-                double y3d = (double) (HEIGHT - y) / (HEIGHT / 2.0) - 1;
-                Vector3D ray = new Vector3D(x3d, y3d, RAY_Z);
+        if (supersampler.isEnabled()) {
+            SilhouetteTable silhouetteTable = resolution.getSilhouetteTable();
+            if (!silhouetteTable.isValid(sphere.radius, supersampler.getSamplesPerAxis())) {
+                silhouetteTable.build(sphere, camera, spanTable, supersampler.getSamplesPerAxis());
+            }
+            supersampler.apply(frame, resolution, sphere, camera, rayZ, scheduler, shader);
+        }
+    }
+
+    private EdgeSupersampler.SurfaceShader getTextureShader(Texture earthTexture1, Texture earthTexture2, double blend) {
+        return EdgeSupersampler.getTextureShader(sphere, earthTexture1.getMipMap(), earthTexture2.getMipMap(), blend, MIPMAPS);
+    }
+
+    /**
+     * Shades points on the sphere by sampling the source images directly
+     */
+    private EdgeSupersampler.SurfaceShader getSourceShader(EarthImage earthImage1, EarthImage earthImage2, double blend) {
+        GeometryContext rotation = sphere.getGeometry();
+        SourceProjection projection1 = new SourceProjection(sphere, rotation, earthImage1, EarthTexture.RAY_Z);
+        SourceProjection projection2 = new SourceProjection(sphere, rotation, earthImage2, EarthTexture.RAY_Z);
+        return (normalX, normalY, normalZ, footprint) -> Rasters.lerp(projection1.getRGB(normalX, normalY, normalZ),
+                projection2.getRGB(normalX, normalY, normalZ), blend);
+    }
+
+    private void waitForNextFrame(long frameStartTime) {
+        long remainingNanos = (long) (1e9 / TARGET_FPS) - (System.nanoTime() - frameStartTime);
+        if (remainingNanos > 0) {
+            try {
+                Thread.sleep(remainingNanos / 1_000_000, (int) (remainingNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void present(Graphics g, FrameBuffer frame) {
+        g.setColor(new Color(123, 234, 12));
+        if (frame.getRenderWidth() == width && frame.getRenderHeight() == height) {
+            g.drawImage(frame.getImage(), 0, 0, null);
+        } else {
+            // Upscale the reduced resolution frame to fill the globe's part of the screen
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.drawImage(frame.getImage(), 0, 0, width, height, 0, 0, frame.getRenderWidth(), frame.getRenderHeight(), null);
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        }
+        if (PREVIEWS) {
+            drawPreview(g, frame.getTexture1(), 0);
+            drawPreview(g, frame.getTexture2(), height / 2);
+        }
+
+        g.drawString("FPS: " + fps, 20, 20);
+        g.drawString(String.format("Date: " + DATE_TIME_FORMATTER.format(frame.getDateTime())), 20, 40);
+        g.drawString(String.format("Speed: " + timeSpeed), 20, 60);
+        g.drawString(String.format("Offset: " + offset), 20, 80);
+        g.drawString(cache.getStatus(), 20, 100);
+        g.drawString(String.format("Texture 1: " + frame.getTexture1().getDate()), 20, 120);
+        g.drawString(String.format("Texture 2: " + frame.getTexture2().getDate()), 20, 140);
+        g.drawString(String.format("Mode: " + renderMode), 20, 160);
+        g.drawString(String.format("Resolution: " + frame.getRenderWidth() + "x" + frame.getRenderHeight()), 20, 180);
+    }
 
-                Intersection intersection = sphere.getIntersection(ray, camera);
+    private void drawPreview(Graphics g, Texture texture, int y) {
+        if (texture instanceof EarthTexture earthTexture && (renderMode == RenderMode.DIRECT || !earthTexture.isBuilt())) {
+            // Show the source image rather than building the texture just to preview it, e.g. for frames
+            // rendered in the direct mode just before switching to another one
+            g.drawImage(earthTexture.getSourcePreview(height / 2, height / 2), width, y, null);
+        } else {
+            g.drawImage(texture.getPreview(height, height / 2), width, y, null);
+        }
+    }
 
-                if (intersection == null) continue;
+    private void renderRayTrace(FrameBuffer frame, RenderResolution resolution, Texture earthTexture1, Texture earthTexture2, double blend) {
+        int[] pixels = frame.getPixels();
+        int stride = frame.getWidth();
+        int width = resolution.getWidth();
+        int height = resolution.getHeight();
+        SpanTable spanTable = resolution.getSpanTable();
 
-                double normalDotCamera = intersection.normal().dot(intersection.point().subtract(camera));
-                if (normalDotCamera > 0) continue;
+        FootprintTable footprintTable = resolution.getFootprintTable();
+        MipMap mipMap1 = earthTexture1.getMipMap();
+        MipMap mipMap2 = earthTexture2.getMipMap();
 
-                double normalDotLight = intersection.normal().dot(lightDirection);
-                if (normalDotLight >= -1 && normalDotLight <= 0) {
+        RayKernel.Scene scene = new RayKernel.Scene(width, height, rayZ, camera, sphere.position, sphere.radius,
+                lightDirection, sphere.getRotationMatrix());
 
-                    Color texColour = sphere.getTextureColour(intersection.point(),
-                            earthTexture1.getTexture(), earthTexture2.getTexture(), blend);
-//                    Color litColour = multiplyColour(texColour, -normalDotLight);
-                    canvas.setRGB(x, y, texColour.getRGB());
+        // Render sphere using generated earth texture
+        scheduler.render(spanTable, (x0, y0, x1, y1) -> {
+            double[] us = new double[x1 - x0];
+            double[] vs = new double[x1 - x0];
+            for (int y = y0; y < y1; y++) {
+                int xStart = Math.max(x0, spanTable.getStart(y));
+                int xEnd = Math.min(x1, spanTable.getEnd(y));
+                rayKernel.traceRow(scene, y, xStart, xEnd, us, vs);
+                for (int x = xStart; x < xEnd; x++) {
+                    double u = us[x - xStart];
+                    // Pixels that miss the sphere or aren't lit have no texture coordinate
+                    pixels[y * stride + x] = Double.isNaN(u) ? 0 : sphere.getTextureRGB(u, vs[x - xStart],
+                            mipMap1, mipMap2, getMipLevel(mipMap1, footprintTable, x, y), blend);
                 }
             }
         });
+    }
 
-        frameCount++;
-        long time = System.currentTimeMillis();
-        if (time - lastFpsTime > 1000) {
-            fps = frameCount;
-            frameCount = 0;
-            lastFpsTime = time;
+    private void renderUVLookup(FrameBuffer frame, RenderResolution resolution, OffsetDateTime renderTime,
+                                Texture earthTexture1, Texture earthTexture2, double blend) {
+        int[] pixels = frame.getPixels();
+        int stride = frame.getWidth();
+        SpanTable spanTable = resolution.getSpanTable();
+        UVLookupTable uvLookupTable = resolution.getUVLookupTable();
+
+        long epochSecond = renderTime.toEpochSecond();
+        long tiltDay = GeometryContext.getSeasonalTiltDay(epochSecond);
+        if (!uvLookupTable.isValid(tiltDay, sphere.radius)) {
+            uvLookupTable.build(sphere, camera, lightDirection, spanTable, scheduler, rayKernel,
+                    GeometryContext.seasonalTilt(epochSecond), tiltDay);
         }
+        double uOffset = GeometryContext.getDailyRotationOffset(epochSecond);
+
+        FootprintTable footprintTable = resolution.getFootprintTable();
+        MipMap mipMap1 = earthTexture1.getMipMap();
+        MipMap mipMap2 = earthTexture2.getMipMap();
+
+        scheduler.render(spanTable, (x0, y0, x1, y1) -> {
+            for (int y = y0; y < y1; y++) {
+                int xEnd = Math.min(x1, spanTable.getEnd(y));
+                for (int x = Math.max(x0, spanTable.getStart(y)); x < xEnd; x++) {
+                    int i = y * stride + x;
+                    if (!uvLookupTable.isHit(x, y)) {
+                        pixels[i] = 0;
+                        continue;
+                    }
+
+                    pixels[i] = sphere.getTextureRGB(uvLookupTable.getU(x, y, uOffset), uvLookupTable.getV(x, y),
+                            mipMap1, mipMap2, getMipLevel(mipMap1, footprintTable, x, y), blend);
+                }
+            }
+        });
+    }
+
+    private void renderDirect(FrameBuffer frame, RenderResolution resolution, EdgeSupersampler.SurfaceShader shader) {
+        int[] pixels = frame.getPixels();
+        int stride = frame.getWidth();
+        int width = resolution.getWidth();
+        int height = resolution.getHeight();
+        SpanTable spanTable = resolution.getSpanTable();
+
+        Vector3D centre = sphere.position;
+        double radius = sphere.radius;
+
+        scheduler.render(spanTable, (x0, y0, x1, y1) -> {
+            for (int y = y0; y < y1; y++) {
+                double y3d = (double) (height - y) / (height / 2.0) - 1;
+                int xEnd = Math.min(x1, spanTable.getEnd(y));
+                for (int x = Math.max(x0, spanTable.getStart(y)); x < xEnd; x++) {
+                    int i = y * stride + x;
+                    pixels[i] = 0;
+
+                    double x3d = (x - width / 2.0) / (height / 2.0);
+                    double rayLength = Math.sqrt(x3d * x3d + y3d * y3d + rayZ * rayZ);
+                    double unitRayX = x3d / rayLength;
+                    double unitRayY = y3d / rayLength;
+                    double unitRayZ = rayZ / rayLength;
+
+                    double distance = sphere.getIntersectionDistance(camera.x(), camera.y(), camera.z(), unitRayX, unitRayY, unitRayZ);
+                    if (Double.isNaN(distance)) {
+                        continue;
+                    }
+                    double normalX = (camera.x() + unitRayX * distance - centre.x()) / radius;
+                    double normalY = (camera.y() + unitRayY * distance - centre.y()) / radius;
+                    double normalZ = (camera.z() + unitRayZ * distance - centre.z()) / radius;
+
+                    double normalDotLight = normalX * lightDirection.x() + normalY * lightDirection.y() + normalZ * lightDirection.z();
+                    if (normalDotLight < -1 || normalDotLight > 0) {
+                        continue;
+                    }
+
+                    pixels[i] = shader.shade(normalX, normalY, normalZ, 0);
+                }
+            }
+        });
+    }
+
+    private static int getMipLevel(MipMap mipMap, FootprintTable footprintTable, int x, int y) {
+        return MIPMAPS ? mipMap.getLevel(footprintTable.getFootprint(x, y)) : 0;
     }
 
     private Color multiplyColour(Color texColour, double multiplier) {
@@ -166,6 +451,8 @@ public class EarthRenderer implements CanvasRenderer, KeyListener {
             adjustTimeSpeed(e);
             addTimeOffset(e);
             toggleRadius(e);
+            toggleRenderMode(e);
+            toggleAdaptiveResolution(e);
         }
     }
 
@@ -179,6 +466,19 @@ public class EarthRenderer implements CanvasRenderer, KeyListener {
         }
     }
 
+    private void toggleRenderMode(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_M) {
+            renderMode = renderMode.next();
+        }
+    }
+
+    private void toggleAdaptiveResolution(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_A) {
+            adaptiveResolution = !adaptiveResolution;
+            resetResolution = true;
+        }
+    }
+
     private void adjustTimeSpeed(KeyEvent e) {
         if (e.getKeyCode() == KeyEvent.VK_L) {
             if (timeSpeed >= 1 && timeSpeed < MAX_TIME_SPEED) {
@@ -3,88 +3,464 @@ package earth;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class EarthTexture implements Texture {
 
-    private static final int WIDTH = 1024;
-    private static final int HEIGHT = 1024;
-
+    // The field of view of the DSCOVR camera, which the images are projected back through
     private static final double FOV = 0.62;
     public static final double RAY_Z = Math.tan(Math.toRadians(90 - (FOV / 2)));
 
+    private static final int THREADS = Integer.getInteger("earthflow.texture.threads", Runtime.getRuntime().availableProcessors());
+    private static final int BAND_HEIGHT = 16;
+    private static final int COARSE_WIDTH = Integer.getInteger("earthflow.texture.coarseWidth", 512);
+    public static final boolean TILES = Boolean.getBoolean("earthflow.texture.tiles");
+    private static final int TILE_SIZE = 256;
+    // Small enough that the finished tiles replace the coarse texture a few at a time rather than all at once
+    private static final int TILES_PER_BATCH = 16;
+
+    // Shared by every texture so that the loader threads building textures at once don't oversubscribe the cores
+    private static final ForkJoinPool POOL = new ForkJoinPool(THREADS, (pool) -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("texture-worker-" + thread.getPoolIndex());
+        return thread;
+    }, null, false);
+
+    // Versions are unique across textures so that a texture loaded again after being evicted never reuses frames
+    // cached from a different stage of the old one
+    private static final AtomicInteger VERSIONS = new AtomicInteger();
+
     private final Sphere sphere;
-    private final EarthImage image;
-    private final BufferedImage earthTexture;
+    private final ImageMetadata metadata;
+    private final EarthImageLoader loader;
+    private EarthImage image;
+    private final int textureWidth;
+    private final int textureHeight;
+    // Scaled to the size the previews are drawn at, and made again when the texture is refined
+    private BufferedImage preview;
+    private int previewVersion;
+    private BufferedImage sourcePreview;
+    // Swapped for the full size texture when it's ready so it's read without locking
+    private volatile MipMap mipMap;
+    // Kept until the texture is released as frames that are still being rendered may be sampling it
+    private MipMap coarseMipMap;
+    private volatile int version;
+    private VisibleRegion visibleRegion;
+    // Held while the texture is built, so that building doesn't block the previews or the frames using the coarse texture
+    private final Object buildLock = new Object();
+    private boolean refined;
+    // Which tiles of a texture built a tile at a time have been traced, null if it's built all at once. Guarded by
+    // the build lock, which the frames never take.
+    private boolean[] tracedTiles;
+    // Whether there are tiles left to trace, read by the frames without the build lock
+    private volatile boolean tiling;
+    // Set while a batch of tiles is queued or being traced so that each frame doesn't queue another
+    private final AtomicBoolean tracingTiles = new AtomicBoolean();
+    private int tilesLeft;
+    private int tileSize;
+    private int tileColumns;
+    private Tracer tracer;
+    // The cache holds the first reference, frame buffers hold the others until they show a different texture
+    private int references = 1;
 
-    public EarthTexture(Sphere sphere, EarthImage image) {
-        this.sphere = sphere;
+    public EarthTexture(Sphere sphere, EarthImage image, int textureWidth, int textureHeight) {
+        this(sphere, image.metadata(), null, textureWidth, textureHeight);
         this.image = image;
-        earthTexture = renderEarthTexture(image.image());
     }
 
-    private BufferedImage renderEarthTexture(BufferedImage earthImage) {
+    /**
+     * Creates a texture whose source image is only loaded when it's needed, which it isn't if the texture was
+     * stored by an earlier run
+     */
+    public EarthTexture(Sphere sphere, ImageMetadata metadata, EarthImageLoader loader, int textureWidth, int textureHeight) {
+        this.sphere = sphere;
+        this.metadata = metadata;
+        this.loader = loader;
+        this.textureWidth = textureWidth;
+        this.textureHeight = textureHeight;
+    }
 
-        // Trace rays to generate earth texture
-        BufferedImage earthTexture = new BufferedImage(WIDTH * 4, HEIGHT * 2, BufferedImage.TYPE_INT_RGB);
+    /**
+     * Builds the full size texture if it hasn't been built yet. Textures are only built on first use so that the
+     * direct render mode, which samples the source image, never pays for them. They are read from the
+     * {@link TextureStore} if an earlier run stored them, otherwise they are traced from the source image and
+     * stored. A coarse texture built by {@link #prepareCoarse()} is used until the full size one is ready, and a
+     * texture started by {@link #prepareTiles()} has the rest of its tiles traced.
+     */
+    public void prepare() {
+        synchronized (buildLock) {
+            if (refined) {
+                return;
+            }
+            if (tracedTiles != null) {
+                boolean[] all = new boolean[tracedTiles.length];
+                Arrays.fill(all, true);
+                traceTiles(all, tilesLeft);
+                return;
+            }
+            MipMap texture = loadStoredTexture();
+            if (texture == null) {
+                texture = toMipMap(renderEarthTexture(getEarthImage().image(), textureWidth, textureHeight, getVisibleRegion()));
+                storeTexture(texture);
+            }
+            publish(texture, true);
+        }
+    }
+
+    /**
+     * Builds a texture earthflow.texture.coarseWidth texels wide, which takes a fraction of the time of the full
+     * size one, for the texture to show until {@link #prepare()} builds the full size one. A stored full size
+     * texture is loaded instead if there is one.
+     */
+    public void prepareCoarse() {
+        synchronized (buildLock) {
+            if (mipMap != null) {
+                return;
+            }
+            MipMap texture = loadStoredTexture();
+            if (texture != null) {
+                publish(texture, true);
+            } else if (COARSE_WIDTH > 0 && COARSE_WIDTH < textureWidth) {
+                int coarseHeight = textureHeight * COARSE_WIDTH / textureWidth;
+                VisibleRegion region = new VisibleRegion(GeometryContext.at(metadata.date().toEpochSecond()).inverse(),
+                        TextureDirections.forSize(COARSE_WIDTH, coarseHeight), COARSE_WIDTH, coarseHeight);
+                publish(toMipMap(renderEarthTexture(getEarthImage().image(), COARSE_WIDTH, coarseHeight, region)), false);
+            }
+        }
+    }
+
+    /**
+     * Starts a full size texture filled in from the coarse texture, and traces its tiles in the background as
+     * frames show them with {@link #prepareVisible(GeometryContext)}, so that the globe can be shown before any of
+     * it is traced at full size. The finished texture is stored. A stored texture is loaded instead if there is
+     * one. Falls back to {@link #prepareCoarse()} if the texture isn't a whole number of tiles.
+     */
+    public void prepareTiles() {
+        synchronized (buildLock) {
+            if (mipMap != null) {
+                return;
+            }
+            MipMap texture = loadStoredTexture();
+            if (texture != null) {
+                publish(texture, true);
+                return;
+            }
+            // Each tile has to cover whole texels of the smallest level for the levels to be averaged per tile
+            tileSize = Math.max(TILE_SIZE, 1 << (MipMap.countLevels(textureWidth, textureHeight) - 1));
+            if (textureWidth % tileSize != 0 || textureHeight % tileSize != 0) {
+                System.out.println("Texture isn't a whole number of " + tileSize + " texel tiles, building it coarse first");
+                prepareCoarse();
+                return;
+            }
+            tileColumns = textureWidth / tileSize;
+            int[] pixels;
+            if (COARSE_WIDTH > 0 && COARSE_WIDTH < textureWidth) {
+                int coarseHeight = textureHeight * COARSE_WIDTH / textureWidth;
+                VisibleRegion region = new VisibleRegion(GeometryContext.at(metadata.date().toEpochSecond()).inverse(),
+                        TextureDirections.forSize(COARSE_WIDTH, coarseHeight), COARSE_WIDTH, coarseHeight);
+                BufferedImage coarse = renderEarthTexture(getEarthImage().image(), COARSE_WIDTH, coarseHeight, region);
+                pixels = Rasters.getPixels(Rasters.scale(coarse, textureWidth, textureHeight));
+            } else {
+                pixels = new int[textureWidth * textureHeight];
+            }
+            MipMap tiled = new MipMap(pixels, textureWidth, textureHeight, TexelBuffer.Format.CONFIGURED,
+                    TexelBuffer.Layout.CONFIGURED);
+            tracer = new Tracer(getEarthImage().image(), textureWidth, textureHeight, getVisibleRegion());
+            // Tiles that were all on the far side of the globe when the image was taken are black, which the
+            // scaled up coarse texture may have bled into
+            boolean[] shown = findTiles(getVisibleRegion());
+            int[] black = new int[tileSize * tileSize];
+            tracedTiles = new boolean[shown.length];
+            for (int tile = 0; tile < shown.length; tile++) {
+                if (shown[tile]) {
+                    tilesLeft++;
+                } else {
+                    tiled.setTile(black, tile % tileColumns * tileSize, tile / tileColumns * tileSize, tileSize, tileSize);
+                    tracedTiles[tile] = true;
+                }
+            }
+            tiling = true;
+            publish(tiled, false);
+        }
+    }
+
+    /**
+     * Starts tracing the tiles of a texture started by {@link #prepareTiles()} that face the camera in a frame
+     * rendered with the given rotation, if they haven't been traced already. The tiles are traced on the texture
+     * pool, at most {@link #TILES_PER_BATCH} at a time, so the frame never waits for them and shows the coarse
+     * texture until they are done. Sampling never has to check whether a tile is ready.
+     */
+    public void prepareVisible(GeometryContext frame) {
+        if (!tiling || !tracingTiles.compareAndSet(false, true)) {
+            return;
+        }
+        // Keeps the texels from being freed if the texture is evicted while the tiles are traced
+        retain();
+        POOL.execute(() -> {
+            try {
+                synchronized (buildLock) {
+                    if (tiling) {
+                        traceTiles(findTiles(new VisibleRegion(frame.inverse(),
+                                TextureDirections.forSize(textureWidth, textureHeight), textureWidth, textureHeight)),
+                                TILES_PER_BATCH);
+                    }
+                }
+            } catch (Throwable t) {
+                // The tiles are traced again for a later frame
+                t.printStackTrace();
+                System.err.println("Error rendering earth texture tiles for " + metadata.date());
+            } finally {
+                tracingTiles.set(false);
+                release();
+            }
+        });
+    }
+
+    /**
+     * Returns which tiles have texels in the region
+     */
+    private boolean[] findTiles(VisibleRegion region) {
+        boolean[] tiles = new boolean[tileColumns * (textureHeight / tileSize)];
+        for (int vy = 0; vy < textureHeight; vy++) {
+            int length = region.getLength(vy);
+            if (length == 0) {
+                continue;
+            }
+            int row = vy / tileSize * tileColumns;
+            int start = region.getStart(vy);
+            // The region can wrap around to the start of the row
+            for (int column = start / tileSize; column <= (start + length - 1) / tileSize; column++) {
+                tiles[row + column % tileColumns] = true;
+            }
+        }
+        return tiles;
+    }
 
+    /**
+     * Traces up to maxTiles of the wanted tiles that haven't been traced yet, in parallel as they don't share any
+     * texels. Stores the texture once the last tile is traced.
+     */
+    private void traceTiles(boolean[] wanted, int maxTiles) {
+        MipMap tiled = mipMap;
+        if (tiled == null) {
+            // Released
+            return;
+        }
+        int[] tiles = new int[Math.min(tilesLeft, maxTiles)];
+        int count = 0;
+        for (int tile = 0; tile < wanted.length && count < tiles.length; tile++) {
+            if (wanted[tile] && !tracedTiles[tile]) {
+                tiles[count++] = tile;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
         long startTime = System.currentTimeMillis();
+        POOL.invoke(new RowBandTask(0, count, 1, (i0, i1) -> {
+            for (int i = i0; i < i1; i++) {
+                traceTile(tiled, tiles[i]);
+            }
+        }));
+        for (int i = 0; i < count; i++) {
+            tracedTiles[tiles[i]] = true;
+        }
+        tilesLeft -= count;
+        System.out.println("Ray traced " + count + " tiles of " + metadata.date() + " "
+                + (System.currentTimeMillis() - startTime) + " ms, " + tilesLeft + " left");
+        synchronized (this) {
+            version = VERSIONS.incrementAndGet();
+            if (tilesLeft == 0) {
+                refined = true;
+                tiling = false;
+                tracer = null;
+            }
+        }
+        if (tilesLeft == 0) {
+            storeTexture(tiled);
+        }
+    }
+
+    private void traceTile(MipMap tiled, int tile) {
+        int x0 = tile % tileColumns * tileSize;
+        int y0 = tile / tileColumns * tileSize;
+        int[] pixels = new int[tileSize * tileSize];
+        for (int y = 0; y < tileSize; y++) {
+            tracer.traceRow(y0 + y, x0, x0 + tileSize, pixels, y * tileSize);
+        }
+        tiled.setTile(pixels, x0, y0, tileSize, tileSize);
+    }
+
+    private MipMap loadStoredTexture() {
+        MipMap texture = TextureStore.ENABLED ? TextureStore.load(metadata, sphere, textureWidth, textureHeight) : null;
+        if (texture != null) {
+            System.out.println("Loaded stored texture for " + metadata.date());
+        }
+        return texture;
+    }
+
+    private void storeTexture(MipMap texture) {
+        // RGB565 texels have lost precision so only textures stored losslessly are worth keeping
+        if (TextureStore.ENABLED && TexelBuffer.Format.CONFIGURED != TexelBuffer.Format.RGB565) {
+            TextureStore.save(metadata, sphere, texture);
+        }
+    }
+
+    private static MipMap toMipMap(BufferedImage texture) {
+        return new MipMap(Rasters.getPixels(texture), texture.getWidth(), texture.getHeight(),
+                TexelBuffer.Format.CONFIGURED, TexelBuffer.Layout.CONFIGURED);
+    }
 
-        int width = WIDTH * 2;
-        int height = HEIGHT * 2;
+    /**
+     * Makes a newly built texture the one that is sampled and previewed
+     */
+    private void publish(MipMap built, boolean full) {
+        synchronized (this) {
+            if (references == 0) {
+                // Released while it was being built
+                built.release();
+                return;
+            }
+            if (!full) {
+                coarseMipMap = built;
+            }
+            mipMap = built;
+            refined = full;
+            version = VERSIONS.incrementAndGet();
+        }
+    }
 
-        Quaternion sphereRotation = sphere.getRotation(image.metadata().date());
-        Quaternion sphereRotationInv = sphereRotation.inverse();
+    private BufferedImage renderEarthTexture(BufferedImage earthImage, int tWidth, int tHeight, VisibleRegion region) {
 
-        int tWidth = width * 2;
-        int tHeight = height;
+        // Trace rays to generate earth texture
+        BufferedImage earthTexture = new BufferedImage(tWidth, tHeight, BufferedImage.TYPE_INT_RGB);
 
-        try {
-            // For each pixel in the texture:
-            // 1. Find the point in on a 3d sphere that it maps to
-            // 2. Project a ray backwards to find the 2d x,y "screen" coordindate
-            // that would intersect this point
-            // 3. Grab the pixel colour of the earth image at these x,y coords
-            for (int ux = 0; ux < WIDTH * 4; ux++) {
-                for (int vy = 0; vy < WIDTH * 2; vy++) {
+        long startTime = System.currentTimeMillis();
 
-                    double u = (double) ux / tWidth;
-                    double v = (double) vy / tHeight;
+        Tracer tracer = new Tracer(earthImage, tWidth, tHeight, region);
+        int[] texturePixels = Rasters.getPixels(earthTexture);
 
-                    // Invert the UV mapping. Taken from:
-                    // https://math.stackexchange.com/questions/1395679/how-would-i-find-a-point-on-a-sphere-with-a-uv-coordinate
-                    double dx = Math.cos(Math.PI * (0.5 - v)) * Math.cos(2 * Math.PI * (u - 0.5));
-                    double dy = Math.sin(Math.PI * (v - 0.5));
-                    double dz = Math.cos(Math.PI * (0.5 - v)) * Math.sin(2 * Math.PI * (u - 0.5));
+        // Failures are left to the caller rather than returning a partly traced texture that could be stored
+        POOL.invoke(new RowBandTask(0, tHeight, BAND_HEIGHT, (y0, y1) -> {
+            for (int vy = y0; vy < y1; vy++) {
+                tracer.traceRow(vy, 0, tWidth, texturePixels, vy * tWidth);
+            }
+        }));
+        System.out.println("Ray traced " + tWidth + "x" + tHeight + " texture " + (System.currentTimeMillis() - startTime));
 
-                    Vector3D d = new Vector3D(dx, dy, dz);
-                    Vector3D i3 = sphereRotationInv.rotatePoint(d);
-                    Vector3D i2 = i3.scale(sphere.radius);
+        return earthTexture;
+    }
 
-                    if (i2.z() > 0) {
-                        continue;
-                    }
-                    Vector3D intersection = i2.add(sphere.position);
+    /**
+     * Traces the texels of a texture of one size back to the source image. For each texel:
+     * 1. Find the point in on a 3d sphere that it maps to
+     * 2. Project a ray backwards to find the 2d x,y "screen" coordindate that would intersect this point
+     * 3. Grab the pixel colour of the earth image at these x,y coords
+     */
+    private class Tracer {
+
+        private final int[] imagePixels;
+        private final int width;
+        private final int height;
+        private final int tWidth;
+        private final GeometryContext rotation;
+        private final TextureDirections directions;
+        // Only the texels facing the camera when the image was taken are traced
+        private final VisibleRegion region;
 
-                    double x3d = intersection.x() * RAY_Z / intersection.z();
-                    double y3d = intersection.y() * RAY_Z / intersection.z();
+        private Tracer(BufferedImage earthImage, int tWidth, int tHeight, VisibleRegion region) {
+            this.imagePixels = Rasters.getPixels(Rasters.toIntRGB(earthImage));
+            this.width = earthImage.getWidth();
+            this.height = earthImage.getHeight();
+            this.tWidth = tWidth;
+            this.rotation = GeometryContext.at(metadata.date().toEpochSecond()).inverse();
+            this.directions = TextureDirections.forSize(tWidth, tHeight);
+            this.region = region;
+        }
+
+        /**
+         * Traces the texels of row vy in the columns x0 to x1, writing column x to out[offset + x - x0]. Texels
+         * that weren't facing the camera are left as they are.
+         */
+        private void traceRow(int vy, int x0, int x1, int[] out, int offset) {
+            int start = region.getStart(vy);
+            int end = start + region.getLength(vy);
+            traceColumns(vy, Math.max(start, x0), Math.min(end, x1), out, offset - x0);
+            if (end > tWidth) {
+                // The region wraps around to the start of the row
+                traceColumns(vy, x0, Math.min(end - tWidth, x1), out, offset - x0);
+            }
+        }
 
-                    double x = (x3d + 1) * (width / 2.0);
-                    double y = height - (y3d + 1) * (height / 2.0);
+        private void traceColumns(int vy, int from, int to, int[] out, int offset) {
+            double radius = sphere.radius;
+            Vector3D position = sphere.position;
+            double dy = directions.getY(vy);
+            for (int ux = from; ux < to; ux++) {
+                double dx = directions.getX(ux, vy);
+                double dz = directions.getZ(ux, vy);
 
-                    x = Math.max(Math.min(x, width - 1), 0);
-                    y = Math.max(Math.min(y, width - 1), 0);
+                double i2z = rotation.rotateZ(dx, dy, dz) * radius;
 
-                    int colour = earthImage.getRGB((int) x, (int) y);
-                    earthTexture.setRGB(ux, vy, colour);
+                if (i2z > 0) {
+                    continue;
                 }
+                double intersectionX = rotation.rotateX(dx, dy, dz) * radius + position.x();
+                double intersectionY = rotation.rotateY(dx, dy, dz) * radius + position.y();
+                double intersectionZ = i2z + position.z();
+
+                double x3d = intersectionX * RAY_Z / intersectionZ;
+                double y3d = intersectionY * RAY_Z / intersectionZ;
+
+                double x = (x3d + 1) * (width / 2.0);
+                double y = height - (y3d + 1) * (height / 2.0);
+
+                x = Math.max(Math.min(x, width - 1), 0);
+                y = Math.max(Math.min(y, height - 1), 0);
+
+                out[offset + ux] = imagePixels[(int) y * width + (int) x];
             }
-        } catch (Throwable t) {
-            t.printStackTrace();
-            System.err.println("Error rendering earth texture for " + image.metadata().date());
         }
-        System.out.println("Ray traced texture " + (System.currentTimeMillis() - startTime));
+    }
 
-        return earthTexture;
+    private interface RowBandRenderer {
+        void renderRows(int y0, int y1);
+    }
+
+    /**
+     * Splits a range of rows, or tiles, in half until there are few enough to render on one thread
+     */
+    private static class RowBandTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int y0;
+        private final int y1;
+        private final int bandHeight;
+        private final transient RowBandRenderer renderer;
+
+        private RowBandTask(int y0, int y1, int bandHeight, RowBandRenderer renderer) {
+            this.y0 = y0;
+            this.y1 = y1;
+            this.bandHeight = bandHeight;
+            this.renderer = renderer;
+        }
+
+        @Override
+        protected void compute() {
+            if (y1 - y0 <= bandHeight) {
+                renderer.renderRows(y0, y1);
+            } else {
+                int middle = (y0 + y1) >>> 1;
+                invokeAll(new RowBandTask(y0, middle, bandHeight, renderer),
+                        new RowBandTask(middle, y1, bandHeight, renderer));
+            }
+        }
     }
 
     private int averagePixels(BufferedImage earthTexture, int x, int y, int kernelSize) {
@@ -117,17 +493,111 @@ public class EarthTexture implements Texture {
         return new Color(averageRed, averageGreen, averageBlue).getRGB();
     }
 
+    /**
+     * Scales the smallest mip level that is at least as big as the preview, so the preview is only made from the
+     * full size texels when it's drawn at full size
+     */
     @Override
-    public BufferedImage getTexture() {
-        return earthTexture;
+    public BufferedImage getPreview(int width, int height) {
+        getMipMap();
+        synchronized (this) {
+            if (mipMap != null && (preview == null || preview.getWidth() != width || preview.getHeight() != height
+                    || previewVersion != version)) {
+                int level = 0;
+                while (level < mipMap.getLevels() - 1 && mipMap.getWidth(level + 1) >= width
+                        && mipMap.getHeight(level + 1) >= height) {
+                    level++;
+                }
+                preview = Rasters.scale(mipMap.toImage(level), width, height);
+                previewVersion = version;
+            }
+            return preview;
+        }
+    }
+
+    /**
+     * Returns the source image scaled to the given size, which is made once rather than each time it's drawn
+     */
+    public synchronized BufferedImage getSourcePreview(int width, int height) {
+        if (sourcePreview == null || sourcePreview.getWidth() != width || sourcePreview.getHeight() != height) {
+            sourcePreview = Rasters.scale(getEarthImage().image(), width, height);
+        }
+        return sourcePreview;
+    }
+
+    /**
+     * Whether there are texels to sample, so that {@link #getMipMap()} won't wait for the texture to be built
+     */
+    public boolean isBuilt() {
+        return mipMap != null;
+    }
+
+    @Override
+    public MipMap getMipMap() {
+        MipMap mipMap = this.mipMap;
+        if (mipMap == null) {
+            prepare();
+            mipMap = this.mipMap;
+        }
+        return mipMap;
+    }
+
+    /**
+     * Changes each time a finer texture is published so that frames rendered from the coarse one aren't reused
+     */
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public synchronized void retain() {
+        references++;
+    }
+
+    /**
+     * Frees the texels once nothing refers to the texture any more, rather than leaving it to the GC. Off heap
+     * texels are freed straight away.
+     */
+    @Override
+    public synchronized void release() {
+        if (--references == 0) {
+            tiling = false;
+            if (mipMap != null) {
+                mipMap.release();
+            }
+            if (coarseMipMap != null && coarseMipMap != mipMap) {
+                coarseMipMap.release();
+            }
+            mipMap = null;
+            coarseMipMap = null;
+            preview = null;
+        }
     }
 
     @Override
     public OffsetDateTime getDate() {
-        return image.metadata().date();
+        return metadata.date();
     }
 
-    public EarthImage getEarthImage() {
+    /**
+     * The part of the full size texture that was visible in the source image, the rest of it is black
+     */
+    public synchronized VisibleRegion getVisibleRegion() {
+        if (visibleRegion == null) {
+            visibleRegion = new VisibleRegion(GeometryContext.at(metadata.date().toEpochSecond()).inverse(),
+                    TextureDirections.forSize(textureWidth, textureHeight), textureWidth, textureHeight);
+        }
+        return visibleRegion;
+    }
+
+    /**
+     * Returns the source image, loading it if it hasn't been loaded yet
+     */
+    public synchronized EarthImage getEarthImage() {
+        if (image == null) {
+            image = new EarthImage(metadata, loader.loadImage(metadata));
+        }
         return image;
     }
 }
@@ -1,8 +1,9 @@
 package earth;
 
-import java.awt.image.BufferedImage;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -12,11 +13,20 @@ public class EarthTextureCache {
 
     private static final int MAX_TEXTURES = 10;
 
+    // Shown when there is no image before or after a time, e.g. until the metadata loads. They are dated as far
+    // as possible from any image so that an image on the other side is blended in fully.
+    private static final ChequerTexture NO_IMAGE_BEFORE = new ChequerTexture(LocalDateTime.MIN.atOffset(ZoneOffset.UTC));
+    private static final ChequerTexture NO_IMAGE_AFTER = new ChequerTexture(LocalDateTime.MAX.atOffset(ZoneOffset.UTC));
+
     private final Sphere sphere;
 
     private final EarthImageLoader loader;
 
-    private final BufferedImage chequerGrid;
+    private volatile boolean prepareTextures;
+
+    private final int textureWidth;
+
+    private final int textureHeight;
 
     private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
 
@@ -30,16 +40,43 @@ public class EarthTextureCache {
 
     private final ConcurrentMap<OffsetDateTime, CompletableFuture<Void>> earthTextureQueue = new ConcurrentHashMap<>();
 
-    private final List<EarthTexture> earthTextureList = new ArrayList<>();
+    // Stand-ins for the images that haven't loaded yet, kept so that they aren't created again every frame
+    private final ConcurrentMap<OffsetDateTime, ChequerTexture> placeholders = new ConcurrentHashMap<>();
 
     private OffsetDateTime lastDateTime;
 
     private String status = "";
 
-    public EarthTextureCache(Sphere sphere, EarthImageLoader loader) {
+    /**
+     * @param prepareTextures whether to build each texture as soon as its image loads rather than on first use
+     */
+    public EarthTextureCache(Sphere sphere, EarthImageLoader loader, boolean prepareTextures, int textureWidth, int textureHeight) {
         this.sphere = sphere;
         this.loader = loader;
-        this.chequerGrid = new ChequerGrid().getImage();
+        this.prepareTextures = prepareTextures;
+        this.textureWidth = textureWidth;
+        this.textureHeight = textureHeight;
+    }
+
+    /**
+     * Sets whether textures are built as soon as their images load, e.g. when the render mode changes to one
+     * that samples them. Textures that are already loaded are built in the background, and the placeholder is
+     * returned in their place until there's something to sample.
+     */
+    public void setPrepareTextures(boolean prepareTextures) {
+        if (prepareTextures == this.prepareTextures) {
+            return;
+        }
+        this.prepareTextures = prepareTextures;
+        if (prepareTextures) {
+            for (EarthTexture earthTexture : earthTextureCache.values()) {
+                CompletableFuture.runAsync(() -> buildTexture(earthTexture), executor).exceptionally(ex -> {
+                    ex.printStackTrace();
+                    System.err.println("Error building texture for " + earthTexture.getDate());
+                    return null;
+                });
+            }
+        }
     }
 
     public void update(OffsetDateTime dateTime) {
@@ -110,20 +147,38 @@ public class EarthTextureCache {
             earthTextureQueue.computeIfAbsent(im.date(), (date) -> CompletableFuture.supplyAsync(() -> {
                 status = "Loading image " + im.date();
                 System.out.println(status);
-                return loader.loadImage(im);
+                EarthTexture earthTexture = new EarthTexture(sphere, im, loader, textureWidth, textureHeight);
+                if (prepareTextures && EarthTexture.TILES) {
+                    // The tiles are traced as the frames showing them are rendered
+                    earthTexture.prepareTiles();
+                } else if (prepareTextures) {
+                    // Only loads the source image if the texture wasn't stored by an earlier run, otherwise
+                    // builds a coarse texture to show while the full size one is built
+                    earthTexture.prepareCoarse();
+                } else {
+                    earthTexture.getEarthImage();
+                }
+                if (prepareTextures && !earthTexture.isBuilt()) {
+                    // No coarse texture was built, e.g. they're turned off, so the frames and previews would
+                    // otherwise wait for the full size one
+                    earthTexture.prepare();
+                }
+                return earthTexture;
             }, executor)
-                    .thenAccept((image) -> {
-                        EarthImage earthImage = new EarthImage(im, image);
-                        EarthTexture earthTexture = new EarthTexture(sphere, earthImage);
+                    .thenAccept((earthTexture) -> {
                         synchronized (this) {
-                            earthTextureCache.putIfAbsent(im.date(), earthTexture);
-                            earthTextureList.add(earthTexture);
-                            earthTextureList.sort(Comparator.comparing(o -> o.getEarthImage().metadata().date()));
+                            if (earthTextureCache.putIfAbsent(im.date(), earthTexture) != null) {
+                                earthTexture.release();
+                            }
+                            placeholders.remove(im.date());
                             System.out.println("Added texture for " + im.date() + ". Cache now has " + (earthTextureCache.size()) + " textures");
                             earthTextureQueue.remove(im.date());
                             status = "Loaded image " + earthTextureCache.size() + "/" + MAX_TEXTURES;
                             System.out.println(status);
                         }
+                        if (prepareTextures) {
+                            buildTexture(earthTexture);
+                        }
                     }).exceptionally(ex -> {
                         earthTextureQueue.remove(im.date());
                         ex.printStackTrace();
@@ -133,6 +188,22 @@ public class EarthTextureCache {
         }
     }
 
+    /**
+     * Builds enough of a texture in the cache to show it if that hasn't been done already, then refines it in
+     * place unless it is built a tile at a time as it's shown. Textures evicted in the meantime are skipped.
+     */
+    private void buildTexture(EarthTexture earthTexture) {
+        if (earthTextureCache.get(earthTexture.getDate()) != earthTexture) {
+            return;
+        }
+        if (EarthTexture.TILES) {
+            earthTexture.prepareTiles();
+        } else {
+            earthTexture.prepareCoarse();
+            earthTexture.prepare();
+        }
+    }
+
     private synchronized Optional<ImageMetadata> getImageMetadataBeforeDateTime(OffsetDateTime dateTime) {
         SortedMap<OffsetDateTime, ImageMetadata> headMap = imageMetadataMap.headMap(dateTime);
         if (headMap.isEmpty()) {
@@ -152,11 +223,11 @@ public class EarthTextureCache {
     public Texture getTextureBefore(OffsetDateTime dateTime) {
         Optional<ImageMetadata> image = getImageMetadataBeforeDateTime(dateTime);
         if (image.isEmpty()) {
-            return new ChequerTexture(chequerGrid, dateTime);
+            return NO_IMAGE_BEFORE;
         }
         EarthTexture texture = earthTextureCache.get(image.get().date());
-        if (texture == null) {
-            return new ChequerTexture(chequerGrid, image.get().date());
+        if (texture == null || prepareTextures && !texture.isBuilt()) {
+            return getPlaceholder(image.get().date());
         }
         return texture;
     }
@@ -164,15 +235,19 @@ public class EarthTextureCache {
     public Texture getTextureAfter(OffsetDateTime dateTime) {
         Optional<ImageMetadata> image = getImageMetadataAfterDateTime(dateTime);
         if (image.isEmpty()) {
-            return new ChequerTexture(chequerGrid, dateTime);
+            return NO_IMAGE_AFTER;
         }
         EarthTexture texture = earthTextureCache.get(image.get().date());
-        if (texture == null) {
-            return new ChequerTexture(chequerGrid, image.get().date());
+        if (texture == null || prepareTextures && !texture.isBuilt()) {
+            return getPlaceholder(image.get().date());
         }
         return texture;
     }
 
+    private Texture getPlaceholder(OffsetDateTime date) {
+        return placeholders.computeIfAbsent(date, (d) -> new ChequerTexture(d));
+    }
+
 
     private synchronized void deleteTexturesBefore(OffsetDateTime dateTime, int skip) {
         Collection<ImageMetadata> values = imageMetadataMap.descendingMap().tailMap(dateTime).values();
@@ -183,8 +258,10 @@ public class EarthTextureCache {
         }
         while (iterator.hasNext()) {
             OffsetDateTime dateToRemove = iterator.next().date();
+            placeholders.remove(dateToRemove);
             EarthTexture remove = earthTextureCache.remove(dateToRemove);
             if (remove != null) {
+                remove.release();
                 System.out.println("Removed image: " + dateToRemove);
             }
         }
@@ -199,8 +276,11 @@ public class EarthTextureCache {
             iterator.next();
         }
         while (iterator.hasNext()) {
-            EarthTexture remove = earthTextureCache.remove(iterator.next().date());
+            OffsetDateTime dateToRemove = iterator.next().date();
+            placeholders.remove(dateToRemove);
+            EarthTexture remove = earthTextureCache.remove(dateToRemove);
             if (remove != null) {
+                remove.release();
                 System.out.println("Removed image");
             }
         }
@@ -0,0 +1,179 @@
+package earth;
+
+/**
+ * Anti-aliases a rendered frame using extra sub-pixel rays only for the pixels that need them: those the edge of
+ * the sphere passes through, using the coverage found by {@link SilhouetteTable}, and optionally those with a
+ * large colour difference to a neighbour. Every other pixel keeps the single sample it was rendered with.
+ */
+public class EdgeSupersampler {
+
+    public interface SurfaceShader {
+        /**
+         * Returns the colour of the sphere at the point with the given unit surface normal, filtered over
+         * roughly the given angle of arc
+         */
+        int shade(double normalX, double normalY, double normalZ, float footprint);
+    }
+
+    private final int samplesPerAxis;
+    private final boolean gradientSampling;
+    private final int threshold;
+
+    private boolean[] gradients = new boolean[0];
+
+    /**
+     * @param samplesPerAxis the number of sub-pixel rays across and down each supersampled pixel
+     * @param gradientSampling whether to also supersample pixels with a sharp change in colour to a neighbour,
+     *                         finding them takes an extra pass over the whole frame
+     * @param threshold the largest difference in any colour channel to a neighbouring pixel before a pixel is
+     *                  supersampled
+     */
+    public EdgeSupersampler(int samplesPerAxis, boolean gradientSampling, int threshold) {
+        this.samplesPerAxis = samplesPerAxis;
+        this.gradientSampling = gradientSampling;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Shades points on the sphere by sampling the textures at the mip level matching the footprint
+     */
+    public static SurfaceShader getTextureShader(Sphere sphere, MipMap mipMap1, MipMap mipMap2, double blend, boolean mipMaps) {
+        Vector3D centre = sphere.position;
+        double radius = sphere.radius;
+        return (normalX, normalY, normalZ, footprint) -> {
+            int level = mipMaps ? mipMap1.getLevel(footprint) : 0;
+            return sphere.getTextureRGB(centre.x() + normalX * radius, centre.y() + normalY * radius,
+                    centre.z() + normalZ * radius, mipMap1, mipMap2, level, blend);
+        };
+    }
+
+    public boolean isEnabled() {
+        return samplesPerAxis > 1;
+    }
+
+    public int getSamplesPerAxis() {
+        return samplesPerAxis;
+    }
+
+    public void apply(FrameBuffer frame, RenderResolution resolution, Sphere sphere, Vector3D camera, double rayZ,
+                      TileScheduler scheduler, SurfaceShader shader) {
+        int[] pixels = frame.getPixels();
+        int stride = frame.getWidth();
+        int width = resolution.getWidth();
+        int height = resolution.getHeight();
+        SpanTable spanTable = resolution.getSpanTable();
+        SilhouetteTable silhouetteTable = resolution.getSilhouetteTable();
+        FootprintTable footprintTable = resolution.getFootprintTable();
+
+        if (gradients.length != pixels.length) {
+            gradients = new boolean[pixels.length];
+        }
+        boolean[] gradients = this.gradients;
+
+        // Mark both sides of every sharp change in colour before any pixel changes. Flags are only ever set here
+        // so tiles can mark their neighbours' pixels, the next pass clears them again.
+        if (gradientSampling) {
+            scheduler.render(spanTable, (x0, y0, x1, y1) -> {
+                for (int y = y0; y < y1; y++) {
+                    int xEnd = Math.min(x1, spanTable.getEnd(y));
+                    int xEndRight = Math.min(xEnd, spanTable.getEnd(y) - 1);
+                    boolean below = y < height - 1;
+                    int belowStart = below ? spanTable.getStart(y + 1) : 0;
+                    int belowEnd = below ? spanTable.getEnd(y + 1) : 0;
+                    for (int x = Math.max(x0, spanTable.getStart(y)); x < xEnd; x++) {
+                        int i = y * stride + x;
+                        int rgb = pixels[i];
+                        if (x < xEndRight && exceedsThreshold(rgb, pixels[i + 1])) {
+                            gradients[i] = true;
+                            gradients[i + 1] = true;
+                        }
+                        if (x >= belowStart && x < belowEnd && exceedsThreshold(rgb, pixels[i + stride])) {
+                            gradients[i] = true;
+                            gradients[i + stride] = true;
+                        }
+                    }
+                }
+            });
+        }
+
+        scheduler.render(spanTable, (x0, y0, x1, y1) -> {
+            for (int y = y0; y < y1; y++) {
+                shadeSilhouette(pixels, y * stride, y, x0, x1, silhouetteTable, footprintTable, shader);
+
+                if (!gradientSampling) {
+                    continue;
+                }
+                for (int s = silhouetteTable.getRowStart(y); s < silhouetteTable.getRowEnd(y); s++) {
+                    int x = silhouetteTable.getColumn(s);
+                    if (x >= x0 && x < x1) {
+                        gradients[y * stride + x] = false;
+                    }
+                }
+                int xEnd = Math.min(x1, spanTable.getEnd(y));
+                for (int x = Math.max(x0, spanTable.getStart(y)); x < xEnd; x++) {
+                    int i = y * stride + x;
+                    if (gradients[i]) {
+                        pixels[i] = supersample(sphere, camera, rayZ, width, height, x, y,
+                                footprintTable.getFootprint(x, y) / samplesPerAxis, shader);
+                        gradients[i] = false;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Shades the silhouette pixels of row y in [x0, x1) into the row of pixels starting at rowOffset. Each is
+     * shaded once at the average normal of the rays that hit it and then faded into the background by how much
+     * of the pixel they cover.
+     */
+    public void shadeSilhouette(int[] pixels, int rowOffset, int y, int x0, int x1, SilhouetteTable silhouetteTable,
+                                FootprintTable footprintTable, SurfaceShader shader) {
+        for (int s = silhouetteTable.getRowStart(y); s < silhouetteTable.getRowEnd(y); s++) {
+            int x = silhouetteTable.getColumn(s);
+            if (x < x0 || x >= x1) {
+                continue;
+            }
+            int rgb = shader.shade(silhouetteTable.getNormalX(s), silhouetteTable.getNormalY(s),
+                    silhouetteTable.getNormalZ(s), footprintTable.getFootprint(x, y));
+            pixels[rowOffset + x] = Rasters.lerp(0, rgb, silhouetteTable.getCoverage(s));
+        }
+    }
+
+    private int supersample(Sphere sphere, Vector3D camera, double rayZ, int width, int height, int x, int y,
+                            float footprint, SurfaceShader shader) {
+        int red = 0;
+        int green = 0;
+        int blue = 0;
+        for (int j = 0; j < samplesPerAxis; j++) {
+            double y3d = (height - (y - 0.5 + (j + 0.5) / samplesPerAxis)) / (height / 2.0) - 1;
+            for (int i = 0; i < samplesPerAxis; i++) {
+                double x3d = (x - 0.5 + (i + 0.5) / samplesPerAxis - width / 2.0) / (height / 2.0);
+                double rayLength = Math.sqrt(x3d * x3d + y3d * y3d + rayZ * rayZ);
+                double unitRayX = x3d / rayLength;
+                double unitRayY = y3d / rayLength;
+                double unitRayZ = rayZ / rayLength;
+
+                double distance = sphere.getIntersectionDistance(camera.x(), camera.y(), camera.z(), unitRayX, unitRayY, unitRayZ);
+                if (Double.isNaN(distance)) {
+                    continue;
+                }
+                int rgb = shader.shade(
+                        (camera.x() + unitRayX * distance - sphere.position.x()) / sphere.radius,
+                        (camera.y() + unitRayY * distance - sphere.position.y()) / sphere.radius,
+                        (camera.z() + unitRayZ * distance - sphere.position.z()) / sphere.radius, footprint);
+                red += (rgb >> 16) & 0xFF;
+                green += (rgb >> 8) & 0xFF;
+                blue += rgb & 0xFF;
+            }
+        }
+        int samples = samplesPerAxis * samplesPerAxis;
+        return (red / samples) << 16 | (green / samples) << 8 | (blue / samples);
+    }
+
+    private boolean exceedsThreshold(int rgb1, int rgb2) {
+        return Math.abs(((rgb1 >> 16) & 0xFF) - ((rgb2 >> 16) & 0xFF)) > threshold
+                || Math.abs(((rgb1 >> 8) & 0xFF) - ((rgb2 >> 8) & 0xFF)) > threshold
+                || Math.abs((rgb1 & 0xFF) - (rgb2 & 0xFF)) > threshold;
+    }
+}
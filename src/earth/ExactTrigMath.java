@@ -0,0 +1,24 @@
+package earth;
+
+public class ExactTrigMath implements TrigMath {
+
+    @Override
+    public double sin(double a) {
+        return Math.sin(a);
+    }
+
+    @Override
+    public double cos(double a) {
+        return Math.cos(a);
+    }
+
+    @Override
+    public double asin(double x) {
+        return Math.asin(x);
+    }
+
+    @Override
+    public double atan2(double y, double x) {
+        return Math.atan2(y, x);
+    }
+}
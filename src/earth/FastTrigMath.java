@@ -0,0 +1,66 @@
+package earth;
+
+/**
+ * Polynomial approximations of the trigonometric functions. The maximum error of every function is below
+ * {@link #MAX_ERROR} radians, which is less than 1/100th of the angle covered by one texel of a 4096x2048 texture
+ * (2 * PI / 4096 = 0.0015 radians).
+ */
+public class FastTrigMath implements TrigMath {
+
+    public static final double MAX_ERROR = 1e-5;
+
+    private static final double TWO_PI = Math.PI * 2;
+    private static final double HALF_PI = Math.PI / 2;
+
+    @Override
+    public double sin(double a) {
+        // Reduce to [-PI, PI] and then to [-PI/2, PI/2] using sin(PI - a) = sin(a)
+        a -= TWO_PI * Math.floor((a + Math.PI) / TWO_PI);
+        if (a > HALF_PI) {
+            a = Math.PI - a;
+        } else if (a < -HALF_PI) {
+            a = -Math.PI - a;
+        }
+        // Taylor series up to a^11, the error at PI/2 is below 6e-8
+        double a2 = a * a;
+        return a * (1 + a2 * (-1.0 / 6 + a2 * (1.0 / 120 + a2 * (-1.0 / 5040 + a2 * (1.0 / 362880 + a2 * (-1.0 / 39916800))))));
+    }
+
+    @Override
+    public double cos(double a) {
+        return sin(a + HALF_PI);
+    }
+
+    @Override
+    public double asin(double x) {
+        return atan2(x, Math.sqrt(Math.max(0, 1 - x * x)));
+    }
+
+    @Override
+    public double atan2(double y, double x) {
+        double absX = Math.abs(x);
+        double absY = Math.abs(y);
+        if (absX == 0 && absY == 0) {
+            return 0;
+        }
+        // Approximate atan over [0, 1] then use symmetry to get the other octants
+        boolean swap = absY > absX;
+        double t = swap ? absX / absY : absY / absX;
+        double angle = atan(t);
+        if (swap) {
+            angle = HALF_PI - angle;
+        }
+        if (x < 0) {
+            angle = Math.PI - angle;
+        }
+        return y < 0 ? -angle : angle;
+    }
+
+    /**
+     * Minimax polynomial for atan(t) with t in [0, 1], maximum error around 2e-6 radians
+     */
+    private static double atan(double t) {
+        double t2 = t * t;
+        return t * (0.99997726 + t2 * (-0.33262347 + t2 * (0.19354346 + t2 * (-0.11643287 + t2 * (0.05265332 + t2 * -0.01172120)))));
+    }
+}
@@ -0,0 +1,58 @@
+package earth;
+
+/**
+ * Stores the angle of arc on the sphere covered by screen pixels so that textures can be sampled from the mip
+ * level that matches it. The footprint only depends on the distance from the centre of the sphere's projected
+ * disc: pixels towards the edge see the surface at a glancing angle and cover more of it. The squared distances
+ * are stored separately for each column and row so the table stays small at any resolution.
+ */
+public class FootprintTable {
+
+    private final int width;
+    private final int height;
+    private final double rayZ;
+
+    private final float[] columnDistances2;
+    private final float[] rowDistances2;
+    private double discRadius;
+
+    private double radius = Double.NaN;
+
+    public FootprintTable(int width, int height, double rayZ) {
+        this.width = width;
+        this.height = height;
+        this.rayZ = rayZ;
+        columnDistances2 = new float[width];
+        rowDistances2 = new float[height];
+    }
+
+    public boolean isValid(double radius) {
+        return this.radius == radius;
+    }
+
+    public void build(Sphere sphere, Vector3D camera) {
+        Vector3D c = sphere.position.subtract(camera);
+        double distance = c.magnitude();
+        // Radius of the projected disc in pixels and the position of its centre
+        discRadius = (height / 2.0) * rayZ * sphere.radius / Math.sqrt(distance * distance - sphere.radius * sphere.radius);
+        double centreX = c.x() * rayZ / c.z() * (height / 2.0) + width / 2.0;
+        double centreY = height - (c.y() * rayZ / c.z() + 1) * (height / 2.0);
+
+        for (int x = 0; x < width; x++) {
+            double dx = (x - centreX) / discRadius;
+            columnDistances2[x] = (float) (dx * dx);
+        }
+        for (int y = 0; y < height; y++) {
+            double dy = (y - centreY) / discRadius;
+            rowDistances2[y] = (float) (dy * dy);
+        }
+
+        radius = sphere.radius;
+    }
+
+    public float getFootprint(int x, int y) {
+        // Cosine of the angle between the surface normal and the view direction
+        double cosAngle = Math.sqrt(Math.max(1e-4, 1 - columnDistances2[x] - rowDistances2[y]));
+        return (float) (1 / (discRadius * cosAngle));
+    }
+}
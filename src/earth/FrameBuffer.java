@@ -0,0 +1,118 @@
+package earth;
+
+import java.awt.image.BufferedImage;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+
+/**
+ * A raster that a frame is rendered into, along with the details of what was rendered so that it can be
+ * presented later, possibly on a different thread
+ */
+public class FrameBuffer {
+
+    private final BufferedImage image;
+    private final int[] pixels;
+
+    private int renderWidth;
+    private int renderHeight;
+    private OffsetDateTime dateTime;
+    private Texture texture1;
+    private Texture texture2;
+
+    // The frame cache entry the buffer currently holds, if any
+    private FrameCache.FrameKey cacheKey;
+
+    // The spans that the background was last cleared for
+    private SpanTable clearedSpans;
+    private int clearedVersion;
+
+    public FrameBuffer(int width, int height) {
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = Rasters.getPixels(image);
+        renderWidth = width;
+        renderHeight = height;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    public int getHeight() {
+        return image.getHeight();
+    }
+
+    /**
+     * Clears the whole buffer if it was last rendered with different spans. Pixels outside the spans are never
+     * written so as long as the spans don't change the background only needs to be cleared once.
+     */
+    public void clearBackground(SpanTable spans) {
+        if (clearedSpans != spans || clearedVersion != spans.getVersion()) {
+            Arrays.fill(pixels, 0);
+            clearedSpans = spans;
+            clearedVersion = spans.getVersion();
+        }
+    }
+
+    /**
+     * Makes the next render clear the whole buffer, called when something other than the renderer has written
+     * pixels outside the spans
+     */
+    public void invalidateBackground() {
+        clearedSpans = null;
+    }
+
+    /**
+     * Records what was rendered into the buffer. Frames rendered at a reduced resolution only use the top left
+     * renderWidth x renderHeight pixels of the buffer.
+     */
+    public void setContents(int renderWidth, int renderHeight, OffsetDateTime dateTime, Texture texture1, Texture texture2) {
+        this.renderWidth = renderWidth;
+        this.renderHeight = renderHeight;
+        this.dateTime = dateTime;
+        // Hold on to the textures until the buffer shows different ones so they aren't freed before it's presented
+        texture1.retain();
+        texture2.retain();
+        if (this.texture1 != null) {
+            this.texture1.release();
+            this.texture2.release();
+        }
+        this.texture1 = texture1;
+        this.texture2 = texture2;
+    }
+
+    public FrameCache.FrameKey getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(FrameCache.FrameKey cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public int getRenderWidth() {
+        return renderWidth;
+    }
+
+    public int getRenderHeight() {
+        return renderHeight;
+    }
+
+    public OffsetDateTime getDateTime() {
+        return dateTime;
+    }
+
+    public Texture getTexture1() {
+        return texture1;
+    }
+
+    public Texture getTexture2() {
+        return texture2;
+    }
+}
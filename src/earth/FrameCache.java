@@ -0,0 +1,106 @@
+package earth;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps copies of recently rendered frames so that pausing, looping or scrubbing back over the same period
+ * doesn't need to render them again. Frame times are quantized so that nearby times share a frame and the
+ * least recently used frames are evicted once the cache grows past its memory budget.
+ */
+public class FrameCache {
+
+    /**
+     * Identifies the textures by their dates rather than the textures themselves, so that cached frames don't
+     * keep evicted textures and their source images reachable
+     */
+    public record FrameKey(long quantizedMillis, OffsetDateTime date1, int version1, OffsetDateTime date2,
+                           int version2, int width, int height, double radius, RenderMode renderMode) {
+    }
+
+    private final long maxQuantumMillis;
+    private final long maxBytes;
+
+    private final LinkedHashMap<FrameKey, int[]> frames = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes = 0;
+
+    public FrameCache(long maxQuantumMillis, long maxBytes) {
+        this.maxQuantumMillis = Math.max(1, maxQuantumMillis);
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Rounds the time down to the start of its quantum, which is the playback time between frames up to the
+     * maximum quantum. The globe then turns a little every frame at 1x rather than jumping once a quantum, while
+     * at high speeds nearby frames still share a cached frame and a paused frame is always the same one. Frames
+     * should be rendered at this time so that the cached frame looks the same whichever time within the quantum
+     * it is first rendered for.
+     */
+    public OffsetDateTime quantize(OffsetDateTime dateTime, long frameStepMillis) {
+        long quantumMillis = Math.max(1, Math.min(maxQuantumMillis, frameStepMillis));
+        long millis = dateTime.toInstant().toEpochMilli();
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(Math.floorDiv(millis, quantumMillis) * quantumMillis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Copies a cached frame into the top left width x height pixels of the frame buffer, returning false if
+     * there is no cached frame for the key
+     */
+    public synchronized boolean get(FrameKey key, FrameBuffer frame) {
+        int[] pixels = frames.get(key);
+        if (pixels == null) {
+            return false;
+        }
+        if (key.equals(frame.getCacheKey())) {
+            // The buffer still holds this frame from the last time it was used
+            return true;
+        }
+        for (int y = 0; y < key.height(); y++) {
+            System.arraycopy(pixels, y * key.width(), frame.getPixels(), y * frame.getWidth(), key.width());
+        }
+        frame.setCacheKey(key);
+        // The cached frame may be of a different resolution or radius with the globe outside the buffer's spans
+        frame.invalidateBackground();
+        return true;
+    }
+
+    public synchronized void put(FrameKey key, FrameBuffer frame) {
+        long bytes = (long) key.width() * key.height() * Integer.BYTES;
+        if (bytes > maxBytes || frames.containsKey(key)) {
+            return;
+        }
+
+        // Evict before adding so that a frame of the same size can be reused, as every frame is new during playback
+        int[] pixels = null;
+        Iterator<Map.Entry<FrameKey, int[]>> iterator = frames.entrySet().iterator();
+        while (usedBytes + bytes > maxBytes && iterator.hasNext()) {
+            int[] evicted = iterator.next().getValue();
+            usedBytes -= (long) evicted.length * Integer.BYTES;
+            iterator.remove();
+            if (evicted.length == key.width() * key.height()) {
+                pixels = evicted;
+            }
+        }
+        if (pixels == null) {
+            pixels = new int[key.width() * key.height()];
+        }
+        for (int y = 0; y < key.height(); y++) {
+            System.arraycopy(frame.getPixels(), y * frame.getWidth(), pixels, y * key.width(), key.width());
+        }
+        frames.put(key, pixels);
+        frame.setCacheKey(key);
+        usedBytes += bytes;
+    }
+
+    public synchronized int size() {
+        return frames.size();
+    }
+}
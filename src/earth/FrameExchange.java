@@ -0,0 +1,68 @@
+package earth;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands rendered frames from a render thread to a presentation thread without locking. The render thread
+ * owns a back buffer and the presentation thread owns a front buffer. Swaps go through a single ready slot
+ * so neither thread ever waits for the other to finish with a buffer. If the presenter falls behind, the
+ * unpresented frame is recycled and only the newest frame is shown.
+ */
+public class FrameExchange {
+
+    private final AtomicReference<FrameBuffer> ready = new AtomicReference<>();
+    // Front buffers handed back by the presenter. The render thread may not have taken one before the presenter
+    // takes the next frame and hands back another, so there are two slots. There are only three buffers and
+    // the presenter holds two of them while it hands one back, so a slot is always free.
+    private final AtomicReferenceArray<FrameBuffer> spares = new AtomicReferenceArray<>(2);
+
+    private volatile Thread presenter;
+
+    public FrameExchange(FrameBuffer spare) {
+        spares.set(0, spare);
+    }
+
+    /**
+     * Publishes a rendered back buffer and returns the buffer to render the next frame into
+     */
+    public FrameBuffer publish(FrameBuffer back) {
+        FrameBuffer unpresented = ready.getAndSet(back);
+        Thread waiting = presenter;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+        if (unpresented != null) {
+            return unpresented;
+        }
+        // The presenter has taken the last ready frame and is about to hand back its old front buffer
+        FrameBuffer next;
+        for (int i = 0; (next = spares.getAndSet(i, null)) == null; i ^= 1) {
+            Thread.onSpinWait();
+        }
+        return next;
+    }
+
+    /**
+     * Waits up to the given time for a newly published frame and returns it, handing the current front buffer
+     * back to the render thread. Returns the current front buffer if no new frame arrived in time.
+     */
+    public FrameBuffer swap(FrameBuffer front, long timeout, TimeUnit unit) {
+        presenter = Thread.currentThread();
+        FrameBuffer next = ready.getAndSet(null);
+        if (next == null) {
+            LockSupport.parkNanos(this, unit.toNanos(timeout));
+            next = ready.getAndSet(null);
+        }
+        if (next == null) {
+            return front;
+        }
+        if (!spares.compareAndSet(0, null, front)) {
+            // The render thread hasn't taken the last buffer handed back yet
+            spares.set(1, front);
+        }
+        return next;
+    }
+}
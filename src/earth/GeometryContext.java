@@ -0,0 +1,117 @@
+package earth;
+
+/**
+ * The rotation of the sphere at one moment as a row major 3x3 matrix, worked out straight from the epoch second
+ * so that it can be built once per frame or image and applied in hot loops without allocating. It performs the
+ * same rotation as {@link Sphere#getRotation(java.time.OffsetDateTime)}, which is kept for code that isn't hot.
+ * Days start at midnight UTC as they do for the DSCOVR image dates.
+ */
+public final class GeometryContext {
+
+    private static final double MAX_TILT = Math.toRadians(23.4);
+    private static final long WINTER_2022 = 1671624000; // 2022-12-21T12:00:00Z
+    private static final long SECONDS_IN_DAY = 86400;
+
+    private final double[] m;
+
+    private GeometryContext(double[] m) {
+        this.m = m;
+    }
+
+    /**
+     * The seasonal tilt followed by the daily rotation at the given time
+     */
+    public static GeometryContext at(long epochSecond) {
+        double tilt = getTiltAngle(epochSecond);
+        double theta = (double) Math.floorMod(epochSecond, SECONDS_IN_DAY) / SECONDS_IN_DAY * Math.PI * 2;
+        double sinTilt = Math.sin(tilt);
+        double cosTilt = Math.cos(tilt);
+        double sinTheta = Math.sin(theta);
+        double cosTheta = Math.cos(theta);
+        // The daily rotation around the y axis applied after the tilt around the x axis
+        return new GeometryContext(new double[]{
+                cosTheta, -sinTheta * sinTilt, sinTheta * cosTilt,
+                0, cosTilt, sinTilt,
+                -sinTheta, -cosTheta * sinTilt, cosTheta * cosTilt
+        });
+    }
+
+    /**
+     * Only the seasonal tilt at the given time, which changes once per day
+     */
+    public static GeometryContext seasonalTilt(long epochSecond) {
+        double tilt = getTiltAngle(epochSecond);
+        double sinTilt = Math.sin(tilt);
+        double cosTilt = Math.cos(tilt);
+        return new GeometryContext(new double[]{
+                1, 0, 0,
+                0, cosTilt, sinTilt,
+                0, -sinTilt, cosTilt
+        });
+    }
+
+    /**
+     * The number of whole days to the 2022 winter solstice, which identifies the seasonal tilt
+     */
+    public static long getSeasonalTiltDay(long epochSecond) {
+        return (WINTER_2022 - epochSecond) / SECONDS_IN_DAY;
+    }
+
+    /**
+     * The daily rotation is around the y axis so it is equivalent to scrolling the texture horizontally.
+     * Returns the amount to add to the u coordinate of a point that has only had the seasonal tilt applied.
+     */
+    public static double getDailyRotationOffset(long epochSecond) {
+        return -(double) Math.floorMod(epochSecond, SECONDS_IN_DAY) / SECONDS_IN_DAY;
+    }
+
+    private static double getTiltAngle(long epochSecond) {
+        double yearInRadians = getSeasonalTiltDay(epochSecond) / 365.25 * (Math.PI * 2);
+        // No need to rotate around the z axis as the DSCOVR satellite compensates for this rotation in its images
+        return MAX_TILT * Math.cos(yearInRadians);
+    }
+
+    /**
+     * The opposite rotation, which is the transpose of the matrix
+     */
+    public GeometryContext inverse() {
+        return new GeometryContext(new double[]{
+                m[0], m[3], m[6],
+                m[1], m[4], m[7],
+                m[2], m[5], m[8]
+        });
+    }
+
+    /**
+     * This rotation followed by the next one
+     */
+    public GeometryContext then(GeometryContext next) {
+        double[] n = next.m;
+        double[] r = new double[9];
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                r[row * 3 + col] = n[row * 3] * m[col] + n[row * 3 + 1] * m[3 + col] + n[row * 3 + 2] * m[6 + col];
+            }
+        }
+        return new GeometryContext(r);
+    }
+
+    public double rotateX(double x, double y, double z) {
+        return m[0] * x + m[1] * y + m[2] * z;
+    }
+
+    public double rotateY(double x, double y, double z) {
+        return m[3] * x + m[4] * y + m[5] * z;
+    }
+
+    public double rotateZ(double x, double y, double z) {
+        return m[6] * x + m[7] * y + m[8] * z;
+    }
+
+    /**
+     * The row major matrix itself, for kernels that keep its elements in registers. It must not be modified.
+     */
+    public double[] getMatrix() {
+        return m;
+    }
+}
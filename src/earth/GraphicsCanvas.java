@@ -3,21 +3,26 @@ package earth;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferStrategy;
+import java.util.concurrent.TimeUnit;
 
 public class GraphicsCanvas extends Canvas implements Runnable {
 
+    private static final boolean PIPELINED = Boolean.parseBoolean(System.getProperty("earthflow.pipelined", "true"));
+
     private final CanvasRenderer renderer;
 
     private Thread thread;
 
-    private boolean isRunning = false;
+    private transient Thread renderThread;
+
+    private volatile boolean isRunning = false;
 
     public GraphicsCanvas(CanvasRenderer renderer, int width, int height) {
 
         this.renderer = renderer;
 
         JFrame frame = new JFrame();
-        this.setSize(width * 2, height);
+        this.setSize(width, height);
         frame.add(this);
         frame.pack();
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -32,6 +37,11 @@ public class GraphicsCanvas extends Canvas implements Runnable {
         createBufferStrategy(2);
         BufferStrategy bs = this.getBufferStrategy();
 
+        if (PIPELINED) {
+            runPipelined(bs);
+            return;
+        }
+
         while (isRunning) {
             Graphics g = bs.getDrawGraphics();
             renderer.render(g);
@@ -41,6 +51,40 @@ public class GraphicsCanvas extends Canvas implements Runnable {
         }
     }
 
+    /**
+     * Ray traces the next frame on a separate thread while the current one is being presented
+     */
+    private void runPipelined(BufferStrategy bs) {
+        FrameExchange exchange = new FrameExchange(renderer.createFrameBuffer());
+
+        renderThread = new Thread(() -> {
+            FrameBuffer back = renderer.createFrameBuffer();
+            long lastFrameTime = System.nanoTime();
+            while (isRunning) {
+                long curFrameTime = System.nanoTime();
+                double dt = (double) (curFrameTime - lastFrameTime) / 1e6; // Convert nanoseconds to milliseconds
+                lastFrameTime = curFrameTime;
+                renderer.renderFrame(back, dt);
+                back = exchange.publish(back);
+            }
+        }, "frame-renderer");
+        renderThread.start();
+
+        FrameBuffer front = renderer.createFrameBuffer();
+        while (isRunning) {
+            FrameBuffer next = exchange.swap(front, 100, TimeUnit.MILLISECONDS);
+            if (next == front) {
+                continue;
+            }
+            front = next;
+            Graphics g = bs.getDrawGraphics();
+            renderer.present(g, front);
+            g.dispose();
+            bs.show();
+            Toolkit.getDefaultToolkit().sync();
+        }
+    }
+
     public void start() {
         if (isRunning)
             return;
@@ -56,6 +100,9 @@ public class GraphicsCanvas extends Canvas implements Runnable {
         isRunning = false;
         try {
             thread.join();
+            if (renderThread != null) {
+                renderThread.join();
+            }
         } catch (Exception e) {
             e.printStackTrace();
             System.exit(0);
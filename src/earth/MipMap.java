@@ -0,0 +1,209 @@
+package earth;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A pyramid of successively halved copies of a texture. Sampling a level whose texels are about the size of a
+ * screen pixel avoids aliasing and keeps the texels being read close together in memory.
+ */
+public class MipMap {
+
+    private static final int MIN_SIZE = 16;
+
+    private final TexelBuffer[] levels;
+    private final int[] widths;
+    private final int[] heights;
+
+    /**
+     * Builds the pyramid from packed RGB pixels. Level 0 uses the given array without copying it, unless the texels are
+     * kept in direct buffers, see {@link TexelBuffer#DIRECT}.
+     */
+    public MipMap(int[] pixels, int width, int height) {
+        this(pixels, width, height, TexelBuffer.Format.INT_RGB, TexelBuffer.Layout.ROW_MAJOR);
+    }
+
+    /**
+     * Builds the pyramid from row major packed RGB pixels and stores each level in the given format and layout.
+     * The levels are averaged from the full colour pixels so the format's loss of precision doesn't build up.
+     */
+    public MipMap(int[] pixels, int width, int height, TexelBuffer.Format format, TexelBuffer.Layout layout) {
+        int numLevels = countLevels(width, height);
+        levels = new TexelBuffer[numLevels];
+        widths = new int[numLevels];
+        heights = new int[numLevels];
+
+        levels[0] = TexelBuffer.pack(pixels, width, height, format, layout);
+        widths[0] = width;
+        heights[0] = height;
+        int[] previous = pixels;
+        for (int level = 1; level < numLevels; level++) {
+            widths[level] = widths[level - 1] / 2;
+            heights[level] = heights[level - 1] / 2;
+            previous = downsample(previous, widths[level - 1], widths[level], heights[level]);
+            levels[level] = TexelBuffer.pack(previous, widths[level], heights[level], format, layout);
+        }
+    }
+
+    /**
+     * Uses levels that have already been built, e.g. ones mapped in by the {@link TextureStore}, each half the size
+     * of the one before
+     */
+    public MipMap(TexelBuffer[] levels) {
+        this.levels = levels;
+        widths = new int[levels.length];
+        heights = new int[levels.length];
+        for (int level = 0; level < levels.length; level++) {
+            widths[level] = levels[level].getWidth();
+            heights[level] = levels[level].getHeight();
+        }
+    }
+
+    /**
+     * The number of levels in the pyramid of a texture of the given size
+     */
+    public static int countLevels(int width, int height) {
+        int numLevels = 1;
+        while ((width >> numLevels) >= MIN_SIZE && (height >> numLevels) >= MIN_SIZE) {
+            numLevels++;
+        }
+        return numLevels;
+    }
+
+    /**
+     * Writes a tile of row major packed RGB pixels to level 0 with its top left texel at (x, y) and its averages
+     * to the levels below. The tile's position and size must be multiples of 2 to the power of the number of
+     * levels less one, so that every texel of every level is averaged from a single tile. Tiles that don't
+     * overlap can be written at the same time.
+     */
+    public void setTile(int[] pixels, int x, int y, int width, int height) {
+        for (int level = 0; level < levels.length; level++) {
+            if (level > 0) {
+                pixels = downsample(pixels, width, width / 2, height / 2);
+                width /= 2;
+                height /= 2;
+                x /= 2;
+                y /= 2;
+            }
+            TexelBuffer texels = levels[level];
+            for (int ty = 0; ty < height; ty++) {
+                for (int tx = 0; tx < width; tx++) {
+                    texels.setRGB(texels.indexOf(x + tx, y + ty), pixels[ty * width + tx]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Averages each 2x2 block of texels. Black texels are the parts of the texture that weren't visible in the
+     * source image so they are left out of the average to stop them darkening the edge of the visible region.
+     */
+    private static int[] downsample(int[] source, int sourceWidth, int width, int height) {
+        int[] result = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = (y * 2) * sourceWidth + x * 2;
+                int sumRed = 0;
+                int sumGreen = 0;
+                int sumBlue = 0;
+                int count = 0;
+                for (int j = 0; j < 4; j++) {
+                    int rgb = source[i + (j & 1) + (j >> 1) * sourceWidth] & 0xffffff;
+                    if (rgb != 0) {
+                        sumRed += rgb >> 16;
+                        sumGreen += (rgb >> 8) & 0xff;
+                        sumBlue += rgb & 0xff;
+                        count++;
+                    }
+                }
+                if (count > 0) {
+                    result[y * width + x] = ((sumRed / count) << 16) | ((sumGreen / count) << 8) | (sumBlue / count);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int getLevels() {
+        return levels.length;
+    }
+
+    public TexelBuffer getTexels(int level) {
+        return levels[level];
+    }
+
+    public int getWidth(int level) {
+        return widths[level];
+    }
+
+    public int getHeight(int level) {
+        return heights[level];
+    }
+
+    /**
+     * The number of bytes used to store every level
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (TexelBuffer level : levels) {
+            bytes += level.getBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Frees the levels straight away if they are stored off the heap. The mip map can't be used afterwards.
+     */
+    public void release() {
+        for (TexelBuffer level : levels) {
+            level.release();
+        }
+    }
+
+    /**
+     * Copies a level into a new image, e.g. to preview a texture whose texels aren't stored as an image
+     */
+    public BufferedImage toImage(int level) {
+        BufferedImage image = new BufferedImage(widths[level], heights[level], BufferedImage.TYPE_INT_RGB);
+        int[] pixels = Rasters.getPixels(image);
+        TexelBuffer texels = levels[level];
+        for (int y = 0; y < heights[level]; y++) {
+            for (int x = 0; x < widths[level]; x++) {
+                pixels[y * widths[level] + x] = texels.getRGB(texels.indexOf(x, y));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Returns the level whose texels best match a screen pixel covering the given angle of arc on the sphere
+     */
+    public int getLevel(float radiansPerPixel) {
+        // Texels per radian of arc are the same in u and v at the equator
+        int texelsPerPixel = (int) (radiansPerPixel * (heights[0] / Math.PI));
+        if (texelsPerPixel <= 1) {
+            return 0;
+        }
+        return Math.min(31 - Integer.numberOfLeadingZeros(texelsPerPixel), levels.length - 1);
+    }
+
+    /**
+     * Whether the other mip map's levels are the same size as this one's
+     */
+    public boolean isSameSize(MipMap other) {
+        return widths[0] == other.widths[0] && heights[0] == other.heights[0];
+    }
+
+    /**
+     * Returns the packed RGB colour of the texel at texture coordinate (u, v), each in [0, 1], of the given level or
+     * of the smallest level if there are fewer levels
+     */
+    public int getRGB(double u, double v, int level) {
+        level = Math.min(level, levels.length - 1);
+        int width = widths[level];
+        int height = heights[level];
+        int x = Math.min((int) (u * width), width - 1);
+        int y = Math.min((int) (v * height), height - 1);
+        TexelBuffer texels = levels[level];
+        return texels.getRGB(texels.indexOf(x, y));
+    }
+}
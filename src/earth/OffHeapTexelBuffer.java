@@ -0,0 +1,105 @@
+package earth;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Texels stored outside the Java heap so that the cached textures don't make the heap, and the collections of it,
+ * any bigger. The memory is freed as soon as the buffer is released rather than whenever the GC gets round to it.
+ * <p>
+ * This uses the Foreign Function &amp; Memory API, so it is only loaded reflectively by {@link TexelBuffer}.
+ */
+abstract class OffHeapTexelBuffer extends TexelBuffer {
+
+    // Shared so that the texture worker threads and the render threads can all read the texels
+    private final Arena arena = Arena.ofShared();
+    protected final MemorySegment texels;
+
+    private OffHeapTexelBuffer(int width, int height, Layout layout, long bytes) {
+        super(width, height, layout);
+        texels = arena.allocate(bytes, Integer.BYTES);
+    }
+
+    static TexelBuffer create(int[] pixels, int width, int height, Format format, Layout layout) {
+        return switch (format) {
+            case INT_RGB -> new IntRGB(pixels, width, height, layout);
+            case RGB24 -> new RGB24(pixels, width, height, layout);
+            case RGB565 -> new RGB565(pixels, width, height, layout);
+        };
+    }
+
+    @Override
+    public long getBytes() {
+        return texels.byteSize();
+    }
+
+    @Override
+    public void release() {
+        arena.close();
+    }
+
+    private static final class IntRGB extends OffHeapTexelBuffer {
+
+        private IntRGB(int[] pixels, int width, int height, Layout layout) {
+            super(width, height, layout, pixels.length * 4L);
+            MemorySegment.copy(pixels, 0, texels, ValueLayout.JAVA_INT, 0, pixels.length);
+        }
+
+        @Override
+        public int getRGB(int index) {
+            return texels.getAtIndex(ValueLayout.JAVA_INT, index);
+        }
+
+        @Override
+        public void setRGB(int index, int rgb) {
+            texels.setAtIndex(ValueLayout.JAVA_INT, index, rgb);
+        }
+    }
+
+    private static final class RGB24 extends OffHeapTexelBuffer {
+
+        private RGB24(int[] pixels, int width, int height, Layout layout) {
+            super(width, height, layout, pixels.length * 3L);
+            for (int i = 0; i < pixels.length; i++) {
+                setRGB(i, pixels[i]);
+            }
+        }
+
+        @Override
+        public int getRGB(int index) {
+            long i = index * 3L;
+            return ((texels.get(ValueLayout.JAVA_BYTE, i) & 0xff) << 16)
+                    | ((texels.get(ValueLayout.JAVA_BYTE, i + 1) & 0xff) << 8)
+                    | (texels.get(ValueLayout.JAVA_BYTE, i + 2) & 0xff);
+        }
+
+        @Override
+        public void setRGB(int index, int rgb) {
+            long i = index * 3L;
+            texels.set(ValueLayout.JAVA_BYTE, i, (byte) (rgb >> 16));
+            texels.set(ValueLayout.JAVA_BYTE, i + 1, (byte) (rgb >> 8));
+            texels.set(ValueLayout.JAVA_BYTE, i + 2, (byte) rgb);
+        }
+    }
+
+    private static final class RGB565 extends OffHeapTexelBuffer {
+
+        private RGB565(int[] pixels, int width, int height, Layout layout) {
+            super(width, height, layout, pixels.length * 2L);
+            for (int i = 0; i < pixels.length; i++) {
+                texels.setAtIndex(ValueLayout.JAVA_SHORT, i, toRGB565(pixels[i]));
+            }
+        }
+
+        @Override
+        public int getRGB(int index) {
+            return fromRGB565(texels.getAtIndex(ValueLayout.JAVA_SHORT, index) & 0xffff);
+        }
+
+        @Override
+        public void setRGB(int index, int rgb) {
+            texels.setAtIndex(ValueLayout.JAVA_SHORT, index, toRGB565(rgb));
+        }
+    }
+}
@@ -38,4 +38,21 @@ public record Quaternion(double w, double x, double y, double z) {
         return new Vector3D(rotated.x, rotated.y, rotated.z);
     }
 
+    /**
+     * Returns the row major 3x3 matrix that performs the same rotation as {@link #rotatePoint(Vector3D)}
+     * so it can be applied in hot loops without allocating
+     */
+    public double[] toMatrix() {
+        // multiply() has the order of the Hamilton product reversed so rotatePoint() is equivalent to q p q^-1
+        double a = w;
+        double b = x;
+        double c = y;
+        double d = z;
+        return new double[]{
+                1 - 2 * (c * c + d * d), 2 * (b * c - a * d), 2 * (b * d + a * c),
+                2 * (b * c + a * d), 1 - 2 * (b * b + d * d), 2 * (c * d - a * b),
+                2 * (b * d - a * c), 2 * (c * d + a * b), 1 - 2 * (b * b + c * c)
+        };
+    }
+
 }
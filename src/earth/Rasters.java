@@ -0,0 +1,67 @@
+package earth;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Helpers for working directly on the packed RGB int arrays behind our images
+ */
+public class Rasters {
+
+    private Rasters() {
+    }
+
+    /**
+     * Returns the backing array of an image created with TYPE_INT_RGB or TYPE_INT_ARGB. Writes to the array
+     * are visible in the image.
+     */
+    public static int[] getPixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Returns an image backed by a packed int array, copying the given image only if it uses a different format
+     */
+    public static BufferedImage toIntRGB(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage intImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        intImage.getGraphics().drawImage(image, 0, 0, null);
+        return intImage;
+    }
+
+    /**
+     * Returns a copy of the image scaled to the given size. Large reductions are made by halving the image until
+     * it's less than twice the size, so that every source pixel contributes rather than only those the bilinear
+     * filter happens to land on.
+     */
+    public static BufferedImage scale(BufferedImage image, int width, int height) {
+        while (image.getWidth() >= width * 2 && image.getHeight() >= height * 2) {
+            image = drawScaled(image, image.getWidth() / 2, image.getHeight() / 2);
+        }
+        return drawScaled(image, width, height);
+    }
+
+    private static BufferedImage drawScaled(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+
+    /**
+     * Linearly interpolates between two packed RGB colours without unpacking them into objects
+     */
+    public static int lerp(int rgbA, int rgbB, double blend) {
+        int weightB = (int) (Math.min(1, Math.max(0, blend)) * 256);
+        int weightA = 256 - weightB;
+        int redBlue = (((rgbA & 0xff00ff) * weightA + (rgbB & 0xff00ff) * weightB) >>> 8) & 0xff00ff;
+        int green = (((rgbA & 0xff00) * weightA + (rgbB & 0xff00) * weightB) >>> 8) & 0xff00;
+        return redBlue | green;
+    }
+}
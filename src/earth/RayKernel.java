@@ -0,0 +1,45 @@
+package earth;
+
+/**
+ * Traces a row of screen pixels against the sphere and works out the texture coordinate each one shows.
+ * Implementations must produce the same results as {@link ScalarRayKernel} using {@link TrigMath#CONFIGURED}. With
+ * the exact functions the vector kernel's results can differ in the last bit, as its atan2 and asin are rounded
+ * differently from {@link Math}'s.
+ */
+public interface RayKernel {
+
+    /**
+     * Everything about the scene that stays the same for a whole frame
+     *
+     * @param rotation row major 3x3 matrix that rotates a direction from the sphere's centre into texture space
+     */
+    record Scene(int width, int height, double rayZ, Vector3D camera, Vector3D centre, double radius,
+                 Vector3D lightDirection, double[] rotation) {
+    }
+
+    /**
+     * Traces the pixels [xStart, xEnd) of row y and writes the texture coordinates of each pixel to us and vs
+     * starting at index 0. Pixels that miss the sphere or aren't lit get NaN coordinates.
+     */
+    void traceRow(Scene scene, int y, int xStart, int xEnd, double[] us, double[] vs);
+
+    /**
+     * Returns the vectorised kernel when the jdk.incubator.vector module is available and enabled, otherwise the
+     * scalar kernel
+     */
+    static RayKernel create() {
+        boolean simd = Boolean.parseBoolean(System.getProperty("earthflow.simd", "true"));
+        if (simd && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded reflectively so that this class never links against the incubator module when it's missing
+                RayKernel kernel = (RayKernel) Class.forName("earth.VectorRayKernel").getDeclaredConstructor().newInstance();
+                System.out.println("Using vector ray kernel");
+                return kernel;
+            } catch (Throwable t) {
+                System.err.println("Unable to create vector ray kernel, falling back to scalar: " + t);
+            }
+        }
+        System.out.println("Using scalar ray kernel");
+        return new ScalarRayKernel();
+    }
+}
@@ -2,14 +2,15 @@ package earth;
 
 public class RenderEarth {
 
-    private static final int WIDTH = 1024;
-    private static final int HEIGHT = 1024;
-
     public static void main(String[] args) {
 
-        EarthRenderer earthRenderer = new EarthRenderer();
+        RenderSettings settings = RenderSettings.fromSystemProperties();
+
+        EarthRenderer earthRenderer = new EarthRenderer(settings);
 
-        GraphicsCanvas main = new GraphicsCanvas(earthRenderer, WIDTH, HEIGHT);
+        // The texture previews are shown to the right of the globe
+        int previewWidth = EarthRenderer.PREVIEWS ? settings.height() : 0;
+        GraphicsCanvas main = new GraphicsCanvas(earthRenderer, settings.width() + previewWidth, settings.height());
 
         main.start();
 
@@ -0,0 +1,24 @@
+package earth;
+
+public enum RenderMode {
+
+    /**
+     * Trace a ray for every pixel of every frame
+     */
+    RAY_TRACE,
+
+    /**
+     * Look up each pixel's texture coordinate from a table that is only rebuilt when the seasonal tilt changes
+     */
+    UV_LOOKUP,
+
+    /**
+     * Map each pixel straight to the source images without building their textures. Frames show just one
+     * image while the other is still loading and fall back to UV_LOOKUP on the placeholder.
+     */
+    DIRECT;
+
+    public RenderMode next() {
+        return values()[(ordinal() + 1) % values().length];
+    }
+}
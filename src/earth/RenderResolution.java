@@ -0,0 +1,47 @@
+package earth;
+
+/**
+ * The per-pixel tables needed to render the globe at one internal resolution
+ */
+public class RenderResolution {
+
+    private final int width;
+    private final int height;
+    private final SpanTable spanTable;
+    private final UVLookupTable uvLookupTable;
+    private final FootprintTable footprintTable;
+    private final SilhouetteTable silhouetteTable;
+
+    public RenderResolution(int width, int height, double rayZ) {
+        this.width = width;
+        this.height = height;
+        spanTable = new SpanTable(width, height, rayZ);
+        uvLookupTable = new UVLookupTable(width, height, rayZ);
+        footprintTable = new FootprintTable(width, height, rayZ);
+        silhouetteTable = new SilhouetteTable(width, height, rayZ);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public SpanTable getSpanTable() {
+        return spanTable;
+    }
+
+    public UVLookupTable getUVLookupTable() {
+        return uvLookupTable;
+    }
+
+    public FootprintTable getFootprintTable() {
+        return footprintTable;
+    }
+
+    public SilhouetteTable getSilhouetteTable() {
+        return silhouetteTable;
+    }
+}
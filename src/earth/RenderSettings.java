@@ -0,0 +1,38 @@
+package earth;
+
+/**
+ * The size of the frames to render and the camera's vertical field of view in degrees
+ */
+public record RenderSettings(int width, int height, double fov) {
+
+    static final double DEFAULT_FOV = 0.62;
+
+    // The DSCOVR images are 2048x2048 so textures with more rows than this can't add any detail
+    private static final int MAX_TEXTURE_HEIGHT = 2048;
+
+    public static RenderSettings fromSystemProperties() {
+        return new RenderSettings(
+                Integer.getInteger("earthflow.width", 1024),
+                Integer.getInteger("earthflow.height", 1024),
+                Double.parseDouble(System.getProperty("earthflow.fov", String.valueOf(DEFAULT_FOV))));
+    }
+
+    /**
+     * The z component of the ray through the centre of the top edge of the frame when its y component is 1
+     */
+    public double rayZ() {
+        return Math.tan(Math.toRadians(90 - (fov / 2)));
+    }
+
+    /**
+     * The texture has two rows for every row of the frame at the default field of view, as it always has had at
+     * 1024x1024, so the texel size follows the size of the globe on screen up to the detail in the images
+     */
+    public int textureHeight() {
+        return (int) Math.min(Math.round(height * 2 * DEFAULT_FOV / fov), MAX_TEXTURE_HEIGHT);
+    }
+
+    public int textureWidth() {
+        return textureHeight() * 2;
+    }
+}
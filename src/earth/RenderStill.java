@@ -0,0 +1,31 @@
+package earth;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.time.OffsetDateTime;
+
+/**
+ * Renders a single frame to a PNG file, e.g. java -Dearthflow.width=7680 -Dearthflow.height=4320 earth.RenderStill
+ * 2023-01-19T00:03:42Z earth.png
+ */
+public class RenderStill {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: RenderStill <date time> <output png>");
+            System.exit(1);
+        }
+
+        RenderSettings settings = RenderSettings.fromSystemProperties();
+        OffsetDateTime dateTime = OffsetDateTime.parse(args[0]);
+        File output = new File(args[1]);
+
+        long startTime = System.currentTimeMillis();
+        StillRenderer renderer = new StillRenderer(settings, EarthRenderer.createSphere(), new EarthImageLoader());
+        ImageIO.write(renderer.render(dateTime), "png", output);
+        System.out.println("Rendered " + settings.width() + "x" + settings.height() + " still to " + output + " in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+
+        System.exit(0);
+    }
+}
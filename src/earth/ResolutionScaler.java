@@ -0,0 +1,79 @@
+package earth;
+
+import java.util.Arrays;
+
+/**
+ * Picks the internal resolution to render the globe at so that the frame rate stays at or above a target.
+ * Frame times are smoothed and the scale only changes after a cool down period so that it doesn't flicker
+ * between steps.
+ */
+public class ResolutionScaler {
+
+    private static final double SMOOTHING = 0.1;
+    private static final int COOL_DOWN_FRAMES = 30;
+    // Only step up when the larger frame is predicted to fit in this fraction of the budget
+    private static final double HEADROOM = 0.8;
+
+    private final double[] scales;
+    private final double frameBudgetNanos;
+
+    private int step = 0;
+    private double averageFrameNanos = 0;
+    private int framesSinceChange = 0;
+
+    /**
+     * @param targetFps the frame rate to try to maintain
+     * @param scales the allowed resolution scales, the largest is used whenever there is enough headroom
+     */
+    public ResolutionScaler(double targetFps, double[] scales) {
+        this.scales = Arrays.stream(scales).boxed().sorted((a, b) -> Double.compare(b, a)).mapToDouble(Double::doubleValue).toArray();
+        this.frameBudgetNanos = 1e9 / targetFps;
+    }
+
+    public static double[] parseScales(String scales) {
+        return Arrays.stream(scales.split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    public double getScale() {
+        return scales[step];
+    }
+
+    public double[] getScales() {
+        return scales;
+    }
+
+    public void reset() {
+        step = 0;
+        averageFrameNanos = 0;
+        framesSinceChange = 0;
+    }
+
+    /**
+     * Records how long the last frame took and updates the scale if needed
+     */
+    public void update(long frameNanos) {
+        averageFrameNanos = averageFrameNanos == 0 ? frameNanos : averageFrameNanos + (frameNanos - averageFrameNanos) * SMOOTHING;
+        framesSinceChange++;
+        if (framesSinceChange < COOL_DOWN_FRAMES) {
+            return;
+        }
+
+        if (averageFrameNanos > frameBudgetNanos && step < scales.length - 1) {
+            changeStep(step + 1);
+        } else if (step > 0) {
+            // Frame time is roughly proportional to the number of pixels rendered
+            double ratio = scales[step - 1] / scales[step];
+            if (averageFrameNanos * ratio * ratio < frameBudgetNanos * HEADROOM) {
+                changeStep(step - 1);
+            }
+        }
+    }
+
+    private void changeStep(int newStep) {
+        double ratio = scales[newStep] / scales[step];
+        averageFrameNanos *= ratio * ratio;
+        step = newStep;
+        framesSinceChange = 0;
+        System.out.println("Rendering at " + scales[step] + "x resolution");
+    }
+}
@@ -0,0 +1,75 @@
+package earth;
+
+public class ScalarRayKernel implements RayKernel {
+
+    @Override
+    public void traceRow(Scene scene, int y, int xStart, int xEnd, double[] us, double[] vs) {
+        traceRow(scene, y, xStart, xEnd, us, vs, 0);
+    }
+
+    /**
+     * Traces [xStart, xEnd) writing the results from index offset onwards. Also used by the vector kernel for the
+     * pixels left over at the end of a row.
+     */
+    static void traceRow(Scene scene, int y, int xStart, int xEnd, double[] us, double[] vs, int offset) {
+        double cameraX = scene.camera().x();
+        double cameraY = scene.camera().y();
+        double cameraZ = scene.camera().z();
+        double centreX = scene.centre().x();
+        double centreY = scene.centre().y();
+        double centreZ = scene.centre().z();
+        double radius = scene.radius();
+        double rayZ = scene.rayZ();
+        double[] m = scene.rotation();
+
+        double y3d = (double) (scene.height() - y) / (scene.height() / 2.0) - 1;
+
+        for (int x = xStart; x < xEnd; x++) {
+            int i = offset + x - xStart;
+            us[i] = Double.NaN;
+            vs[i] = Double.NaN;
+
+            double x3d = (x - scene.width() / 2.0) / (scene.height() / 2.0);
+            double rayLength = Math.sqrt(x3d * x3d + y3d * y3d + rayZ * rayZ);
+            double unitRayX = x3d / rayLength;
+            double unitRayY = y3d / rayLength;
+            double unitRayZ = rayZ / rayLength;
+
+            double rayToCentreX = centreX - cameraX;
+            double rayToCentreY = centreY - cameraY;
+            double rayToCentreZ = centreZ - cameraZ;
+            double rayComponent = rayToCentreX * unitRayX + rayToCentreY * unitRayY + rayToCentreZ * unitRayZ;
+            double rayToCentreLength2 = rayToCentreX * rayToCentreX + rayToCentreY * rayToCentreY + rayToCentreZ * rayToCentreZ;
+            double distanceFromCentre2 = rayToCentreLength2 - rayComponent * rayComponent;
+
+            if (distanceFromCentre2 > radius * radius) continue;
+
+            double distance = rayComponent - Math.sqrt(radius * radius - distanceFromCentre2);
+
+            double pointX = cameraX + unitRayX * distance;
+            double pointY = cameraY + unitRayY * distance;
+            double pointZ = cameraZ + unitRayZ * distance;
+            double normalX = (pointX - centreX) / radius;
+            double normalY = (pointY - centreY) / radius;
+            double normalZ = (pointZ - centreZ) / radius;
+
+            double normalDotCamera = normalX * (pointX - cameraX) + normalY * (pointY - cameraY) + normalZ * (pointZ - cameraZ);
+            if (normalDotCamera > 0) continue;
+
+            double normalDotLight = normalX * scene.lightDirection().x() + normalY * scene.lightDirection().y() + normalZ * scene.lightDirection().z();
+            if (normalDotLight < -1 || normalDotLight > 0) continue;
+
+            double normalLength = Math.sqrt(normalX * normalX + normalY * normalY + normalZ * normalZ);
+            double dx = normalX / normalLength;
+            double dy = normalY / normalLength;
+            double dz = normalZ / normalLength;
+
+            double rx = m[0] * dx + m[1] * dy + m[2] * dz;
+            double ry = m[3] * dx + m[4] * dy + m[5] * dz;
+            double rz = m[6] * dx + m[7] * dy + m[8] * dz;
+
+            us[i] = 0.5 + TrigMath.CONFIGURED.atan2(rz, rx) / (Math.PI * 2);
+            vs[i] = 0.5 + TrigMath.CONFIGURED.asin(ry) / Math.PI;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package earth;
+
+import java.util.Arrays;
+
+/**
+ * Lists the pixels that the edge of the sphere's projected disc passes through. Each one is covered by a grid of
+ * sub-pixel rays to find the fraction of it the sphere covers and the average surface normal of the rays that
+ * hit. The sphere never moves relative to the camera so these only change with the radius and each frame only
+ * needs to shade one point per edge pixel.
+ */
+public class SilhouetteTable {
+
+    private final int width;
+    private final int height;
+    private final double rayZ;
+
+    // The silhouette pixels of row y are from rowOffsets[y] until rowOffsets[y + 1]
+    private final int[] rowOffsets;
+    private int[] columns = new int[0];
+    private float[] coverages = new float[0];
+    private float[] normals = new float[0];
+
+    private int samplesPerAxis;
+    private double radius = Double.NaN;
+
+    public SilhouetteTable(int width, int height, double rayZ) {
+        this.width = width;
+        this.height = height;
+        this.rayZ = rayZ;
+        rowOffsets = new int[height + 1];
+    }
+
+    public boolean isValid(double radius, int samplesPerAxis) {
+        return this.radius == radius && this.samplesPerAxis == samplesPerAxis;
+    }
+
+    public void build(Sphere sphere, Vector3D camera, SpanTable spanTable, int samplesPerAxis) {
+        long startTime = System.currentTimeMillis();
+
+        int count = 0;
+        int[] newColumns = new int[1024];
+        float[] newCoverages = new float[1024];
+        float[] newNormals = new float[1024 * 3];
+
+        // Whether the corners above and below each pixel in the current row hit the sphere
+        boolean[] cornersAbove = new boolean[width + 1];
+        boolean[] cornersBelow = new boolean[width + 1];
+        double[] normal = new double[3];
+
+        for (int y = 0; y < height; y++) {
+            rowOffsets[y] = count;
+            int start = spanTable.getStart(y);
+            int end = spanTable.getEnd(y);
+            for (int x = start; x <= end; x++) {
+                cornersAbove[x] = trace(sphere, camera, x - 0.5, y - 0.5, normal);
+                cornersBelow[x] = trace(sphere, camera, x - 0.5, y + 0.5, normal);
+            }
+
+            for (int x = start; x < end; x++) {
+                boolean corner = cornersAbove[x];
+                if (corner == cornersAbove[x + 1] && corner == cornersBelow[x] && corner == cornersBelow[x + 1]) {
+                    continue;
+                }
+
+                int hits = 0;
+                double normalX = 0;
+                double normalY = 0;
+                double normalZ = 0;
+                for (int j = 0; j < samplesPerAxis; j++) {
+                    for (int i = 0; i < samplesPerAxis; i++) {
+                        if (trace(sphere, camera, x - 0.5 + (i + 0.5) / samplesPerAxis, y - 0.5 + (j + 0.5) / samplesPerAxis, normal)) {
+                            normalX += normal[0];
+                            normalY += normal[1];
+                            normalZ += normal[2];
+                            hits++;
+                        }
+                    }
+                }
+                if (hits == 0) {
+                    continue;
+                }
+
+                if (count == newColumns.length) {
+                    newColumns = Arrays.copyOf(newColumns, count * 2);
+                    newCoverages = Arrays.copyOf(newCoverages, count * 2);
+                    newNormals = Arrays.copyOf(newNormals, count * 2 * 3);
+                }
+                double normalLength = Math.sqrt(normalX * normalX + normalY * normalY + normalZ * normalZ);
+                newColumns[count] = x;
+                newCoverages[count] = (float) hits / (samplesPerAxis * samplesPerAxis);
+                newNormals[count * 3] = (float) (normalX / normalLength);
+                newNormals[count * 3 + 1] = (float) (normalY / normalLength);
+                newNormals[count * 3 + 2] = (float) (normalZ / normalLength);
+                count++;
+            }
+        }
+        rowOffsets[height] = count;
+
+        columns = newColumns;
+        coverages = newCoverages;
+        normals = newNormals;
+        this.samplesPerAxis = samplesPerAxis;
+        radius = sphere.radius;
+
+        System.out.println("Built silhouette table with " + count + " pixels in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    /**
+     * Traces the ray through the screen position (x, y) and stores the unit surface normal where it hits the
+     * sphere, returning false if it misses
+     */
+    private boolean trace(Sphere sphere, Vector3D camera, double x, double y, double[] normal) {
+        double x3d = (x - width / 2.0) / (height / 2.0);
+        double y3d = (height - y) / (height / 2.0) - 1;
+        double rayLength = Math.sqrt(x3d * x3d + y3d * y3d + rayZ * rayZ);
+        double unitRayX = x3d / rayLength;
+        double unitRayY = y3d / rayLength;
+        double unitRayZ = rayZ / rayLength;
+
+        double distance = sphere.getIntersectionDistance(camera.x(), camera.y(), camera.z(), unitRayX, unitRayY, unitRayZ);
+        if (Double.isNaN(distance)) {
+            return false;
+        }
+        normal[0] = (camera.x() + unitRayX * distance - sphere.position.x()) / sphere.radius;
+        normal[1] = (camera.y() + unitRayY * distance - sphere.position.y()) / sphere.radius;
+        normal[2] = (camera.z() + unitRayZ * distance - sphere.position.z()) / sphere.radius;
+        return true;
+    }
+
+    public int getRowStart(int y) {
+        return rowOffsets[y];
+    }
+
+    public int getRowEnd(int y) {
+        return rowOffsets[y + 1];
+    }
+
+    public int getColumn(int i) {
+        return columns[i];
+    }
+
+    /**
+     * The fraction of the pixel's sub-pixel rays that hit the sphere
+     */
+    public float getCoverage(int i) {
+        return coverages[i];
+    }
+
+    public float getNormalX(int i) {
+        return normals[i * 3];
+    }
+
+    public float getNormalY(int i) {
+        return normals[i * 3 + 1];
+    }
+
+    public float getNormalZ(int i) {
+        return normals[i * 3 + 2];
+    }
+}
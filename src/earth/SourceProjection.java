@@ -0,0 +1,54 @@
+package earth;
+
+/**
+ * Maps points on the sphere at the time of a frame straight to pixels of the DSCOVR image they were photographed
+ * in. This is the same projection {@link EarthTexture} uses to build its texture but applied per screen pixel so
+ * the image can be shown without first building the texture.
+ */
+public class SourceProjection {
+
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final GeometryContext rotation;
+    private final double radius;
+    private final Vector3D position;
+    private final double rayZ;
+
+    /**
+     * @param frameRotation the rotation of the sphere at the time of the frame
+     */
+    public SourceProjection(Sphere sphere, GeometryContext frameRotation, EarthImage image, double rayZ) {
+        this.pixels = Rasters.getPixels(image.image());
+        this.width = image.image().getWidth();
+        this.height = image.image().getHeight();
+        // Undo the rotation of the frame and then apply the inverse rotation at the time the image was taken
+        GeometryContext imageRotation = GeometryContext.at(image.metadata().date().toEpochSecond());
+        this.rotation = frameRotation.then(imageRotation.inverse());
+        this.radius = sphere.radius;
+        this.position = sphere.position;
+        this.rayZ = rayZ;
+    }
+
+    /**
+     * Returns the colour of the image at the point on the sphere in the direction (dx, dy, dz) from its centre or
+     * black if the point wasn't visible when the image was taken
+     */
+    public int getRGB(double dx, double dy, double dz) {
+        double iz = rotation.rotateZ(dx, dy, dz) * radius;
+        if (iz > 0) {
+            return 0;
+        }
+        double intersectionX = rotation.rotateX(dx, dy, dz) * radius + position.x();
+        double intersectionY = rotation.rotateY(dx, dy, dz) * radius + position.y();
+        double intersectionZ = iz + position.z();
+
+        double x3d = intersectionX * rayZ / intersectionZ;
+        double y3d = intersectionY * rayZ / intersectionZ;
+
+        int x = (int) Math.max(Math.min((x3d + 1) * (width / 2.0), width - 1), 0);
+        int y = (int) Math.max(Math.min(height - (y3d + 1) * (height / 2.0), height - 1), 0);
+
+        return pixels[y * width + x];
+    }
+}
@@ -0,0 +1,114 @@
+package earth;
+
+/**
+ * Stores, for every row of the screen, the range of columns [start, end) that the sphere's projected disc
+ * covers. The disc is found analytically so pixels outside it never need to be traced or sampled.
+ */
+public class SpanTable {
+
+    private final int width;
+    private final int height;
+    private final double rayZ;
+
+    private final int[] starts;
+    private final int[] ends;
+
+    private double radius = Double.NaN;
+    private int version = 0;
+
+    public SpanTable(int width, int height, double rayZ) {
+        this.width = width;
+        this.height = height;
+        this.rayZ = rayZ;
+        starts = new int[height];
+        ends = new int[height];
+    }
+
+    public boolean isValid(double radius) {
+        return this.radius == radius;
+    }
+
+    public void build(Sphere sphere, Vector3D camera) {
+        Vector3D c = sphere.position.subtract(camera);
+        double k = c.magnitude2() - sphere.radius * sphere.radius;
+
+        for (int y = 0; y < height; y++) {
+            double y3d = (double) (height - y) / (height / 2.0) - 1;
+
+            // A ray (x3d, y3d, rayZ) hits the sphere when (c.r)^2 >= k |r|^2 which is a quadratic in x3d
+            double cyz = c.y() * y3d + c.z() * rayZ;
+            double a = c.x() * c.x() - k;
+            double b = 2 * c.x() * cyz;
+            double cc = cyz * cyz - k * (y3d * y3d + rayZ * rayZ);
+
+            if (k <= 0 || a >= 0) {
+                // The camera is inside the sphere or the cone around the ray is degenerate so trace the whole row
+                starts[y] = 0;
+                ends[y] = width;
+                continue;
+            }
+
+            double discriminant = b * b - 4 * a * cc;
+            if (discriminant < 0) {
+                starts[y] = 0;
+                ends[y] = 0;
+                continue;
+            }
+
+            double sqrtDiscriminant = Math.sqrt(discriminant);
+            double x3dMin = (-b + sqrtDiscriminant) / (2 * a);
+            double x3dMax = (-b - sqrtDiscriminant) / (2 * a);
+
+            // Widen the span by a pixel either side so rounding can never cut off the edge of the disc
+            int start = (int) Math.floor(x3dMin * (height / 2.0) + width / 2.0) - 1;
+            int end = (int) Math.ceil(x3dMax * (height / 2.0) + width / 2.0) + 1;
+            starts[y] = Math.max(0, Math.min(start, width));
+            ends[y] = Math.max(starts[y], Math.min(end, width));
+        }
+
+        // Also widen each span to cover the rows above and below so every pixel the edge of the disc passes through
+        // is rendered, even where the edge is nearly horizontal
+        int[] rowStarts = starts.clone();
+        int[] rowEnds = ends.clone();
+        for (int y = 0; y < height; y++) {
+            for (int neighbour = Math.max(0, y - 1); neighbour <= Math.min(height - 1, y + 1); neighbour++) {
+                if (rowStarts[neighbour] >= rowEnds[neighbour]) {
+                    continue;
+                }
+                if (starts[y] >= ends[y]) {
+                    starts[y] = rowStarts[neighbour];
+                    ends[y] = rowEnds[neighbour];
+                } else {
+                    starts[y] = Math.min(starts[y], rowStarts[neighbour]);
+                    ends[y] = Math.max(ends[y], rowEnds[neighbour]);
+                }
+            }
+        }
+
+        radius = sphere.radius;
+        version++;
+    }
+
+    /**
+     * Incremented every time the spans are rebuilt
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getStart(int y) {
+        return starts[y];
+    }
+
+    public int getEnd(int y) {
+        return ends[y];
+    }
+}
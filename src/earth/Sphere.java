@@ -5,18 +5,16 @@ import java.awt.image.BufferedImage;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
-import java.time.temporal.Temporal;
 
 @SuppressWarnings("DataFlowIssue")
 public class Sphere {
 
     private static final double MAX_TILT = Math.toRadians(23.4);
-    private static final Temporal WINTER_2022 = OffsetDateTime.of(2022, 12, 21, 12, 0, 0, 0, ZoneOffset.UTC);
     public final Vector3D position;
     public double radius;
     private static final long SECONDS_IN_DAY = 86400;
 
-    private Quaternion rotation;
+    private GeometryContext geometry;
     private OffsetDateTime dateTime;
 
     public Sphere(Vector3D position, double radius) {
@@ -26,8 +24,15 @@ public class Sphere {
         update(this.dateTime);
     }
 
-    private Quaternion getSeasonalTilt(OffsetDateTime dateTime) {
-        double daysSinceWinterSolstice = ChronoUnit.DAYS.between(dateTime, WINTER_2022);
+    /**
+     * The seasonal tilt only changes once per day so this can be used to tell when it needs recomputing
+     */
+    public long getSeasonalTiltDay(OffsetDateTime dateTime) {
+        return GeometryContext.getSeasonalTiltDay(dateTime.toEpochSecond());
+    }
+
+    public Quaternion getSeasonalTilt(OffsetDateTime dateTime) {
+        double daysSinceWinterSolstice = getSeasonalTiltDay(dateTime);
         double yearInRadians = daysSinceWinterSolstice / 365.25 * (Math.PI * 2);
         double xAxisTilt = MAX_TILT * Math.cos(yearInRadians);
         double zAxisTilt = 0; // MAX_TILT * Math.sin(yearInRadians); // no need to rotate around the z axis as the DSCOVR satellite compensates for this rotation in its images
@@ -41,10 +46,32 @@ public class Sphere {
         return new Quaternion(theta, new Vector3D(0, 1, 0));
     }
 
+    /**
+     * The daily rotation is around the y axis so it is equivalent to scrolling the texture horizontally.
+     * Returns the amount to add to the u coordinate of a point that has only had the seasonal tilt applied.
+     */
+    public double getDailyRotationOffset(OffsetDateTime dateTime) {
+        return GeometryContext.getDailyRotationOffset(dateTime.toEpochSecond());
+    }
+
     public void update(OffsetDateTime dateTime) {
 //        rotation = getRotation(days);
         this.dateTime = dateTime;
-        rotation = getRotation(dateTime);
+        geometry = GeometryContext.at(dateTime.toEpochSecond());
+    }
+
+    /**
+     * The rotation for the date passed to the last call to {@link #update(OffsetDateTime)}
+     */
+    public GeometryContext getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * The rotation for the date passed to the last call to {@link #update(OffsetDateTime)} as a row major 3x3 matrix
+     */
+    public double[] getRotationMatrix() {
+        return geometry.getMatrix();
     }
 
     public Quaternion getRotation(OffsetDateTime dateTime) {
@@ -74,9 +101,70 @@ public class Sphere {
         return new Intersection(intersectionPoint, normal);
     }
 
+    /**
+     * Allocation free version of {@link #getIntersection(Vector3D, Vector3D)}. Returns the distance along the
+     * unit ray from the origin to the nearest intersection with the sphere or NaN if the ray misses.
+     */
+    public double getIntersectionDistance(double originX, double originY, double originZ,
+                                          double unitRayX, double unitRayY, double unitRayZ) {
+        double rayToCentreX = position.x() - originX;
+        double rayToCentreY = position.y() - originY;
+        double rayToCentreZ = position.z() - originZ;
+        double rayComponent = rayToCentreX * unitRayX + rayToCentreY * unitRayY + rayToCentreZ * unitRayZ;
+        double rayToCentreLength2 = rayToCentreX * rayToCentreX + rayToCentreY * rayToCentreY + rayToCentreZ * rayToCentreZ;
+        double distanceFromCentre2 = rayToCentreLength2 - rayComponent * rayComponent;
+
+        if (distanceFromCentre2 > radius * radius) {
+            return Double.NaN;
+        }
+
+        return rayComponent - Math.sqrt(radius * radius - distanceFromCentre2);
+    }
+
+    /**
+     * Allocation free version of {@link #getTextureColour(Vector3D, BufferedImage, BufferedImage, double)} that
+     * samples the given level of two mip mapped textures
+     */
+    public int getTextureRGB(double pointX, double pointY, double pointZ, MipMap earthTexture1, MipMap earthTexture2,
+                             int level, double blend) {
+        double dx = pointX - position.x();
+        double dy = pointY - position.y();
+        double dz = pointZ - position.z();
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        dx /= length;
+        dy /= length;
+        dz /= length;
+
+        double rx = geometry.rotateX(dx, dy, dz);
+        double ry = geometry.rotateY(dx, dy, dz);
+        double rz = geometry.rotateZ(dx, dy, dz);
+
+        double u = 0.5 + TrigMath.CONFIGURED.atan2(rz, rx) / (Math.PI * 2);
+        double v = 0.5 + TrigMath.CONFIGURED.asin(ry) / Math.PI;
+
+        return getTextureRGB(u, v, earthTexture1, earthTexture2, level, blend);
+    }
+
+    /**
+     * Samples the given level of two mip mapped textures. Textures of the same size, which is every texture but the
+     * chequer board shown while images load, share the texel index.
+     */
+    public int getTextureRGB(double u, double v, MipMap earthTexture1, MipMap earthTexture2, int level, double blend) {
+        if (!earthTexture1.isSameSize(earthTexture2)) {
+            return Rasters.lerp(earthTexture1.getRGB(u, v, level), earthTexture2.getRGB(u, v, level), blend);
+        }
+        int textureWidth = earthTexture1.getWidth(level);
+        int textureHeight = earthTexture1.getHeight(level);
+        int uint = Math.min((int) (u * textureWidth), textureWidth - 1);
+        int vint = Math.min((int) (v * textureHeight), textureHeight - 1);
+        TexelBuffer texels1 = earthTexture1.getTexels(level);
+        int index = texels1.indexOf(uint, vint);
+
+        return Rasters.lerp(texels1.getRGB(index), earthTexture2.getTexels(level).getRGB(index), blend);
+    }
+
     public Color getTextureColour(Vector3D point, BufferedImage earthTexture1, BufferedImage earthTexture2, double blend) {
-        Vector3D d = point.subtract(position).unit();
-        d = getRotation(dateTime).rotatePoint(d);
+        Vector3D d = rotate(geometry, point.subtract(position).unit());
 
         double u = 0.5 + Math.atan2(d.z(), d.x()) / (Math.PI * 2);
         double v = 0.5 + Math.asin(d.y()) / Math.PI;
@@ -98,8 +186,7 @@ public class Sphere {
     }
 
     private Color getTextureColour(Vector3D point, BufferedImage earthTexture, int offset) {
-        Vector3D d = point.subtract(position).unit();
-        d = getRotation(dateTime.plusMinutes(offset)).rotatePoint(d);
+        Vector3D d = rotate(GeometryContext.at(dateTime.toEpochSecond() + offset * 60L), point.subtract(position).unit());
 
         double u = 0.5 + Math.atan2(d.z(), d.x()) / (Math.PI * 2);
         double v = 0.5 + Math.asin(d.y()) / Math.PI;
@@ -110,6 +197,11 @@ public class Sphere {
         return getTextureColour(point, earthTexture, d, u, v, uint, vint);
     }
 
+    private static Vector3D rotate(GeometryContext rotation, Vector3D d) {
+        return new Vector3D(rotation.rotateX(d.x(), d.y(), d.z()), rotation.rotateY(d.x(), d.y(), d.z()),
+                rotation.rotateZ(d.x(), d.y(), d.z()));
+    }
+
     private static Color getTextureColour(Vector3D point, BufferedImage earthTexture, Vector3D d, double u, double v, int uint, int vint) {
         if (uint < 0 || vint < 0 || uint >= earthTexture.getWidth() || vint >= earthTexture.getHeight()) {
             System.out.println("u/v out of bounds!");
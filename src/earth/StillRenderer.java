@@ -0,0 +1,126 @@
+package earth;
+
+import java.awt.image.RenderedImage;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Renders single frames of any size, e.g. 4K or 8K stills, a band of rows at a time. Only the per-row and
+ * per-column tables are kept for the whole frame so the memory needed doesn't grow with the number of pixels.
+ */
+public class StillRenderer {
+
+    private static final int BAND_HEIGHT = Integer.getInteger("earthflow.still.bandHeight", 256);
+
+    private final RenderSettings settings;
+    private final Sphere sphere;
+    private final EarthImageLoader loader;
+    private final TileScheduler scheduler;
+    private final RayKernel rayKernel;
+    private final EdgeSupersampler supersampler;
+
+    private final Vector3D camera = new Vector3D(0, 0, 0);
+    private final Vector3D lightDirection = new Vector3D(0, 0, 1);
+
+    private final SpanTable spanTable;
+    private final FootprintTable footprintTable;
+    private final SilhouetteTable silhouetteTable;
+
+    public StillRenderer(RenderSettings settings, Sphere sphere, EarthImageLoader loader) {
+        this.settings = settings;
+        this.sphere = sphere;
+        this.loader = loader;
+        scheduler = new TileScheduler();
+        rayKernel = RayKernel.create();
+        supersampler = new EdgeSupersampler(EarthRenderer.SUPERSAMPLING, false, 0);
+
+        spanTable = new SpanTable(settings.width(), settings.height(), settings.rayZ());
+        footprintTable = new FootprintTable(settings.width(), settings.height(), settings.rayZ());
+        silhouetteTable = new SilhouetteTable(settings.width(), settings.height(), settings.rayZ());
+    }
+
+    /**
+     * Loads the images either side of the given time and returns the frame blended between them. The frame is
+     * rendered as it is read so it should be read in order from top to bottom, e.g. by ImageIO.write.
+     */
+    public RenderedImage render(OffsetDateTime dateTime) {
+        TreeMap<OffsetDateTime, ImageMetadata> images = new TreeMap<>();
+        for (LocalDate date = dateTime.toLocalDate().minusDays(1); !date.isAfter(dateTime.toLocalDate().plusDays(1)); date = date.plusDays(1)) {
+            Metadata metadata = loader.getMetadata(date);
+            if (metadata == null) {
+                continue;
+            }
+            for (ImageMetadata im : metadata.getMetadata()) {
+                images.put(im.date(), im);
+            }
+        }
+        Map.Entry<OffsetDateTime, ImageMetadata> before = images.floorEntry(dateTime);
+        Map.Entry<OffsetDateTime, ImageMetadata> after = images.ceilingEntry(dateTime);
+        if (before == null || after == null) {
+            throw new IllegalArgumentException("No images either side of " + dateTime);
+        }
+
+        EarthTexture texture1 = loadTexture(before.getValue());
+        EarthTexture texture2 = before.getKey().equals(after.getKey()) ? texture1 : loadTexture(after.getValue());
+
+        long secondsBetweenImages = ChronoUnit.SECONDS.between(texture1.getDate(), texture2.getDate());
+        double blend = secondsBetweenImages == 0 ? 0 : (double) ChronoUnit.SECONDS.between(texture1.getDate(), dateTime) / secondsBetweenImages;
+
+        return render(dateTime, texture1, texture2, blend);
+    }
+
+    private EarthTexture loadTexture(ImageMetadata im) {
+        EarthTexture texture = new EarthTexture(sphere, im, loader, settings.textureWidth(), settings.textureHeight());
+        texture.prepare();
+        return texture;
+    }
+
+    public RenderedImage render(OffsetDateTime dateTime, Texture texture1, Texture texture2, double blend) {
+        sphere.update(dateTime);
+        if (!spanTable.isValid(sphere.radius)) {
+            spanTable.build(sphere, camera);
+        }
+        if (!footprintTable.isValid(sphere.radius)) {
+            footprintTable.build(sphere, camera);
+        }
+        if (supersampler.isEnabled() && !silhouetteTable.isValid(sphere.radius, supersampler.getSamplesPerAxis())) {
+            silhouetteTable.build(sphere, camera, spanTable, supersampler.getSamplesPerAxis());
+        }
+
+        int width = settings.width();
+        MipMap mipMap1 = texture1.getMipMap();
+        MipMap mipMap2 = texture2.getMipMap();
+        EdgeSupersampler.SurfaceShader shader = EdgeSupersampler.getTextureShader(sphere, mipMap1, mipMap2, blend, EarthRenderer.MIPMAPS);
+        RayKernel.Scene scene = new RayKernel.Scene(width, settings.height(), settings.rayZ(), camera, sphere.position,
+                sphere.radius, lightDirection, sphere.getRotationMatrix());
+
+        return new BandedImage(width, settings.height(), BAND_HEIGHT, (y0, y1, pixels) -> {
+            Arrays.fill(pixels, 0);
+            scheduler.render(spanTable, y0, y1, (x0, ty0, x1, ty1) -> {
+                double[] us = new double[x1 - x0];
+                double[] vs = new double[x1 - x0];
+                for (int y = ty0; y < ty1; y++) {
+                    int rowOffset = (y - y0) * width;
+                    int xStart = Math.max(x0, spanTable.getStart(y));
+                    int xEnd = Math.min(x1, spanTable.getEnd(y));
+                    rayKernel.traceRow(scene, y, xStart, xEnd, us, vs);
+                    for (int x = xStart; x < xEnd; x++) {
+                        double u = us[x - xStart];
+                        if (Double.isNaN(u)) {
+                            continue;
+                        }
+                        int level = EarthRenderer.MIPMAPS ? mipMap1.getLevel(footprintTable.getFootprint(x, y)) : 0;
+                        pixels[rowOffset + x] = sphere.getTextureRGB(u, vs[x - xStart], mipMap1, mipMap2, level, blend);
+                    }
+                    if (supersampler.isEnabled()) {
+                        supersampler.shadeSilhouette(pixels, rowOffset, y, x0, x1, silhouetteTable, footprintTable, shader);
+                    }
+                }
+            });
+        });
+    }
+}
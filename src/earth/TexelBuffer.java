@@ -0,0 +1,342 @@
+package earth;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Locale;
+
+/**
+ * The texels of one level of a texture stored in one of the {@link Format}s and {@link Layout}s. Only one format
+ * is used at a time so the calls to {@link #getRGB(int)} in the sampling loops only ever see one implementation.
+ */
+public abstract class TexelBuffer {
+
+    private static final int BLOCK_BITS = 3;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+    public enum Format {
+        /**
+         * 4 bytes per texel, sharing the array it was created from
+         */
+        INT_RGB,
+        /**
+         * 3 bytes per texel with no loss of colour
+         */
+        RGB24,
+        /**
+         * 2 bytes per texel with 5 bits of red and blue and 6 of green
+         */
+        RGB565;
+
+        public static final Format CONFIGURED = valueOf(
+                System.getProperty("earthflow.texture.format", INT_RGB.name()).toUpperCase(Locale.ROOT));
+    }
+
+    public enum Layout {
+        /**
+         * One row of texels after another, as in a BufferedImage
+         */
+        ROW_MAJOR,
+        /**
+         * 8x8 blocks of texels stored one after another, a row of blocks at a time. Texels that are close in both u
+         * and v are close in memory so sampling a small part of the texture, e.g. for a small or distant globe,
+         * touches fewer cache lines and pages.
+         */
+        BLOCKED;
+
+        public static final Layout CONFIGURED = valueOf(
+                System.getProperty("earthflow.texture.layout", ROW_MAJOR.name()).toUpperCase(Locale.ROOT));
+    }
+
+    // OffHeapTexelBuffer's factory method, or null to store texels in Java arrays
+    private static final Method OFF_HEAP_FACTORY = findOffHeapFactory();
+
+    /**
+     * Whether texels are stored outside the Java heap by {@link OffHeapTexelBuffer}
+     */
+    public static final boolean OFF_HEAP = OFF_HEAP_FACTORY != null;
+
+    /**
+     * Whether INT_RGB texels are kept in direct buffers, so that textures memory mapped in by the
+     * {@link TextureStore} can be sampled without copying them and without a second implementation in the sampling
+     * loops. Sampling one costs the same as sampling an array.
+     */
+    public static final boolean DIRECT = TextureStore.ENABLED && !OFF_HEAP && Format.CONFIGURED == Format.INT_RGB;
+
+    private final int width;
+    private final int height;
+    private final Layout layout;
+    private final int blocksPerRow;
+
+    protected TexelBuffer(int width, int height, Layout layout) {
+        this.width = width;
+        this.height = height;
+        this.layout = layout;
+        this.blocksPerRow = (width + BLOCK_SIZE - 1) >> BLOCK_BITS;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * The number of texels stored, which includes the padding of the edge blocks in the BLOCKED layout
+     */
+    public final int getLength() {
+        return lengthOf(width, height, layout);
+    }
+
+    /**
+     * The number of texels stored for a level of the given size in the given layout
+     */
+    public static int lengthOf(int width, int height, Layout layout) {
+        if (layout == Layout.ROW_MAJOR) {
+            return width * height;
+        }
+        return ((width + BLOCK_SIZE - 1) >> BLOCK_BITS) * ((height + BLOCK_SIZE - 1) >> BLOCK_BITS) * BLOCK_SIZE * BLOCK_SIZE;
+    }
+
+    /**
+     * Returns the index of the texel at column x and row y
+     */
+    public final int indexOf(int x, int y) {
+        if (layout == Layout.ROW_MAJOR) {
+            return y * width + x;
+        }
+        int block = (y >> BLOCK_BITS) * blocksPerRow + (x >> BLOCK_BITS);
+        return (block << (BLOCK_BITS * 2)) | ((y & (BLOCK_SIZE - 1)) << BLOCK_BITS) | (x & (BLOCK_SIZE - 1));
+    }
+
+    /**
+     * Returns the packed RGB int colour of the texel at the given index
+     */
+    public abstract int getRGB(int index);
+
+    /**
+     * Sets the texel at the given index to a packed RGB int colour, e.g. to fill in a texture a tile at a time
+     */
+    public abstract void setRGB(int index, int rgb);
+
+    /**
+     * The number of bytes used to store the texels
+     */
+    public abstract long getBytes();
+
+    /**
+     * Frees the texels straight away if they are stored off the heap. The buffer can't be used afterwards.
+     */
+    public void release() {
+    }
+
+    /**
+     * Stores row major packed RGB int pixels in the given format and layout. The INT_RGB format in the ROW_MAJOR
+     * layout uses the array without copying it, unless the texels are kept in direct buffers.
+     */
+    public static TexelBuffer pack(int[] pixels, int width, int height, Format format, Layout layout) {
+        if (layout == Layout.BLOCKED) {
+            pixels = toBlocks(pixels, width, height);
+        }
+        if (OFF_HEAP_FACTORY != null) {
+            try {
+                return (TexelBuffer) OFF_HEAP_FACTORY.invoke(null, pixels, width, height, format, layout);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Unable to store texels off heap", e);
+            }
+        }
+        if (DIRECT && format == Format.INT_RGB) {
+            IntBuffer texels = ByteBuffer.allocateDirect(pixels.length * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+            return wrap(texels.put(0, pixels), width, height, layout);
+        }
+        return switch (format) {
+            case INT_RGB -> new IntRGB(pixels, width, height, layout);
+            case RGB24 -> new RGB24(pixels, width, height, layout);
+            case RGB565 -> new RGB565(pixels, width, height, layout);
+        };
+    }
+
+    /**
+     * Uses INT_RGB texels in a direct buffer that are already in the given layout without copying them, e.g. ones
+     * memory mapped from a file. The texels are freed when the buffer is no longer reachable. Only used when
+     * {@link #DIRECT}.
+     */
+    public static TexelBuffer wrap(IntBuffer texels, int width, int height, Layout layout) {
+        return new DirectIntRGB(texels, width, height, layout);
+    }
+
+    /**
+     * Returns the off heap buffer's factory method when it's enabled and the Foreign Function & Memory API is
+     * available, otherwise null
+     */
+    private static Method findOffHeapFactory() {
+        if (!Boolean.getBoolean("earthflow.texture.offHeap")) {
+            return null;
+        }
+        try {
+            // Loaded reflectively so that this class never links against the API on JDKs that don't have it
+            Method factory = Class.forName("earth.OffHeapTexelBuffer").getDeclaredMethod("create", int[].class,
+                    int.class, int.class, Format.class, Layout.class);
+            System.out.println("Storing texels off heap");
+            return factory;
+        } catch (Throwable t) {
+            System.err.println("Unable to store texels off heap, falling back to the heap: " + t);
+            return null;
+        }
+    }
+
+    /**
+     * Converts an RGB565 texel to a packed RGB int colour
+     */
+    static int fromRGB565(int texel) {
+        int red = texel >> 11;
+        int green = (texel >> 5) & 0x3f;
+        int blue = texel & 0x1f;
+        // Repeat the top bits in the bits that were dropped so that white stays white
+        return ((red << 3 | red >> 2) << 16) | ((green << 2 | green >> 4) << 8) | (blue << 3 | blue >> 2);
+    }
+
+    /**
+     * Converts a packed RGB int colour to an RGB565 texel
+     */
+    static short toRGB565(int rgb) {
+        return (short) (((rgb >> 8) & 0xf800) | ((rgb >> 5) & 0x7e0) | ((rgb >> 3) & 0x1f));
+    }
+
+    /**
+     * Reorders row major pixels into blocks. The edge blocks are padded with black when the size isn't a multiple
+     * of the block size.
+     */
+    private static int[] toBlocks(int[] pixels, int width, int height) {
+        int blocksPerRow = (width + BLOCK_SIZE - 1) >> BLOCK_BITS;
+        int blocksPerColumn = (height + BLOCK_SIZE - 1) >> BLOCK_BITS;
+        int[] blocks = new int[blocksPerRow * blocksPerColumn * BLOCK_SIZE * BLOCK_SIZE];
+        TexelBuffer layout = new IntRGB(blocks, width, height, Layout.BLOCKED);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                blocks[layout.indexOf(x, y)] = pixels[y * width + x];
+            }
+        }
+        return blocks;
+    }
+
+    private static final class IntRGB extends TexelBuffer {
+
+        private final int[] pixels;
+
+        private IntRGB(int[] pixels, int width, int height, Layout layout) {
+            super(width, height, layout);
+            this.pixels = pixels;
+        }
+
+        @Override
+        public int getRGB(int index) {
+            return pixels[index];
+        }
+
+        @Override
+        public void setRGB(int index, int rgb) {
+            pixels[index] = rgb;
+        }
+
+        @Override
+        public long getBytes() {
+            return pixels.length * 4L;
+        }
+    }
+
+    private static final class DirectIntRGB extends TexelBuffer {
+
+        private final IntBuffer texels;
+
+        private DirectIntRGB(IntBuffer texels, int width, int height, Layout layout) {
+            super(width, height, layout);
+            this.texels = texels;
+        }
+
+        @Override
+        public int getRGB(int index) {
+            return texels.get(index);
+        }
+
+        @Override
+        public void setRGB(int index, int rgb) {
+            texels.put(index, rgb);
+        }
+
+        @Override
+        public long getBytes() {
+            return texels.capacity() * 4L;
+        }
+    }
+
+    private static final class RGB24 extends TexelBuffer {
+
+        private final byte[] bytes;
+
+        private RGB24(int[] pixels, int width, int height, Layout layout) {
+            super(width, height, layout);
+            bytes = new byte[pixels.length * 3];
+            for (int i = 0; i < pixels.length; i++) {
+                bytes[i * 3] = (byte) (pixels[i] >> 16);
+                bytes[i * 3 + 1] = (byte) (pixels[i] >> 8);
+                bytes[i * 3 + 2] = (byte) pixels[i];
+            }
+        }
+
+        @Override
+        public int getRGB(int index) {
+            int i = index * 3;
+            return ((bytes[i] & 0xff) << 16) | ((bytes[i + 1] & 0xff) << 8) | (bytes[i + 2] & 0xff);
+        }
+
+        @Override
+        public void setRGB(int index, int rgb) {
+            int i = index * 3;
+            bytes[i] = (byte) (rgb >> 16);
+            bytes[i + 1] = (byte) (rgb >> 8);
+            bytes[i + 2] = (byte) rgb;
+        }
+
+        @Override
+        public long getBytes() {
+            return bytes.length;
+        }
+    }
+
+    private static final class RGB565 extends TexelBuffer {
+
+        private final short[] texels;
+
+        private RGB565(int[] pixels, int width, int height, Layout layout) {
+            super(width, height, layout);
+            texels = new short[pixels.length];
+            for (int i = 0; i < pixels.length; i++) {
+                texels[i] = toRGB565(pixels[i]);
+            }
+        }
+
+        @Override
+        public int getRGB(int index) {
+            return fromRGB565(texels[index] & 0xffff);
+        }
+
+        @Override
+        public void setRGB(int index, int rgb) {
+            texels[index] = toRGB565(rgb);
+        }
+
+        @Override
+        public long getBytes() {
+            return texels.length * 2L;
+        }
+    }
+}
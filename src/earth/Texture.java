@@ -5,7 +5,35 @@ import java.time.OffsetDateTime;
 
 public interface Texture {
 
-    BufferedImage getTexture();
+    /**
+     * Returns an image of the whole texture scaled to the given size to draw next to the globe. The image is kept
+     * so that it doesn't have to be scaled again each frame.
+     */
+    BufferedImage getPreview(int width, int height);
+
+    /**
+     * Returns the texels that the renderers sample with {@link MipMap#getRGB(double, double, int)}
+     */
+    MipMap getMipMap();
 
     OffsetDateTime getDate();
+
+    /**
+     * Changes whenever the texels change, e.g. when a coarse texture is refined
+     */
+    default int getVersion() {
+        return 0;
+    }
+
+    /**
+     * Adds a reference to the texture, e.g. from a frame buffer that will draw its preview
+     */
+    default void retain() {
+    }
+
+    /**
+     * Removes a reference to the texture. Textures that own their texels free them when the last reference goes.
+     */
+    default void release() {
+    }
 }
@@ -0,0 +1,63 @@
+package earth;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The unit direction from the sphere's centre through each texel of an equirectangular texture of a given size.
+ * The direction is (cosLatitude * cosLongitude, sinLatitude, cosLatitude * sinLongitude) so only the latitude
+ * terms of each row and the longitude terms of each column are stored. They are built once per texture size and
+ * shared by every texture of that size, which then only has to apply its own rotation and projection.
+ */
+public final class TextureDirections {
+
+    private static final Map<Long, TextureDirections> CACHE = new ConcurrentHashMap<>();
+
+    private final double[] cosLatitudes;
+    private final double[] sinLatitudes;
+    private final double[] cosLongitudes;
+    private final double[] sinLongitudes;
+
+    private TextureDirections(int width, int height, TrigMath math) {
+        // Invert the UV mapping. Taken from:
+        // https://math.stackexchange.com/questions/1395679/how-would-i-find-a-point-on-a-sphere-with-a-uv-coordinate
+        cosLatitudes = new double[height];
+        sinLatitudes = new double[height];
+        for (int vy = 0; vy < height; vy++) {
+            double v = (double) vy / height;
+            cosLatitudes[vy] = math.cos(Math.PI * (0.5 - v));
+            sinLatitudes[vy] = math.sin(Math.PI * (v - 0.5));
+        }
+        cosLongitudes = new double[width];
+        sinLongitudes = new double[width];
+        for (int ux = 0; ux < width; ux++) {
+            double u = (double) ux / width;
+            cosLongitudes[ux] = math.cos(2 * Math.PI * (u - 0.5));
+            sinLongitudes[ux] = math.sin(2 * Math.PI * (u - 0.5));
+        }
+    }
+
+    /**
+     * Returns the shared directions for textures of the given size, building them on first use
+     */
+    public static TextureDirections forSize(int width, int height) {
+        return CACHE.computeIfAbsent(((long) width << 32) | height,
+                (key) -> new TextureDirections(width, height, TrigMath.CONFIGURED));
+    }
+
+    public double getX(int ux, int vy) {
+        return cosLatitudes[vy] * cosLongitudes[ux];
+    }
+
+    public double getCosLatitude(int vy) {
+        return cosLatitudes[vy];
+    }
+
+    public double getY(int vy) {
+        return sinLatitudes[vy];
+    }
+
+    public double getZ(int ux, int vy) {
+        return cosLatitudes[vy] * sinLongitudes[ux];
+    }
+}
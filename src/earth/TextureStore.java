@@ -0,0 +1,154 @@
+package earth;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps reprojected textures on disk next to their source images so that they don't have to be traced again the
+ * next time the program runs. Each file is a fixed size header followed by every mip level's RGB ints in the
+ * configured layout, and is memory mapped to read it back. INT_RGB textures sample the mapped file directly, see
+ * {@link TexelBuffer#DIRECT}, so loading one reads nothing until it is sampled. The texels of the other formats,
+ * or of textures stored off heap, are packed from it. The header records
+ * everything the texels depend on, so a texture is traced again if the size, the layout, the sphere, the trig
+ * functions or the source image change.
+ */
+public class TextureStore {
+
+    /**
+     * Off by default as each stored texture takes about 45 MB of disk at the default texture size
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("earthflow.texture.store");
+
+    private static final int MAGIC = 0x45465458;
+    // Increase whenever the reprojection changes so that textures stored by older versions are traced again
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 7 * Integer.BYTES + 4 * Double.BYTES + 2 * Long.BYTES;
+
+    private TextureStore() {
+    }
+
+    /**
+     * Returns the stored texture of the image taken at the given time, or null if there isn't one stored for a
+     * texture of this size and sphere
+     */
+    public static MipMap load(ImageMetadata im, Sphere sphere, int width, int height) {
+        File file = EarthImageLoader.getTextureFile(im, width, height);
+        if (!file.exists()) {
+            return null;
+        }
+        File imageFile = EarthImageLoader.getImageFile(im);
+        TexelBuffer.Layout layout = TexelBuffer.Layout.CONFIGURED;
+        int numLevels = MipMap.countLevels(width, height);
+        long bytes = HEADER_BYTES;
+        for (int level = 0; level < numLevels; level++) {
+            bytes += TexelBuffer.lengthOf(width >> level, height >> level, layout) * (long) Integer.BYTES;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() != bytes) {
+                System.out.println("Ignoring stored texture of the wrong size " + file);
+                return null;
+            }
+            // The texels are never written, but a private mapping gives the same buffer class as the texels kept in
+            // direct buffers. The mapping stays valid after the channel is closed.
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.PRIVATE, 0, bytes);
+            buffer.order(ByteOrder.nativeOrder());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != width
+                    || buffer.getInt() != height || buffer.getInt() != layout.ordinal() || buffer.getInt() != numLevels
+                    || buffer.getDouble() != sphere.radius || buffer.getDouble() != sphere.position.x()
+                    || buffer.getDouble() != sphere.position.y() || buffer.getDouble() != sphere.position.z()
+                    || buffer.getInt() != getMathId() || buffer.getLong() != imageFile.length()
+                    || buffer.getLong() != imageFile.lastModified()) {
+                System.out.println("Ignoring out of date stored texture " + file);
+                return null;
+            }
+            TexelBuffer[] levels = new TexelBuffer[numLevels];
+            int offset = HEADER_BYTES;
+            for (int level = 0; level < numLevels; level++) {
+                int levelWidth = width >> level;
+                int levelHeight = height >> level;
+                int length = TexelBuffer.lengthOf(levelWidth, levelHeight, layout);
+                IntBuffer texels = buffer.slice(offset, length * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+                levels[level] = TexelBuffer.wrap(texels, levelWidth, levelHeight, layout);
+                if (!TexelBuffer.DIRECT) {
+                    levels[level] = TexelBuffer.pack(toRowMajor(levels[level]), levelWidth, levelHeight,
+                            TexelBuffer.Format.CONFIGURED, layout);
+                }
+                offset += length * Integer.BYTES;
+            }
+            return new MipMap(levels);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Error loading stored texture " + file);
+            return null;
+        }
+    }
+
+    private static int[] toRowMajor(TexelBuffer texels) {
+        int[] pixels = new int[texels.getWidth() * texels.getHeight()];
+        for (int y = 0; y < texels.getHeight(); y++) {
+            for (int x = 0; x < texels.getWidth(); x++) {
+                pixels[y * texels.getWidth() + x] = texels.getRGB(texels.indexOf(x, y));
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Identifies the trig functions the texel directions were built with, see {@link TrigMath#CONFIGURED}
+     */
+    private static int getMathId() {
+        return TrigMath.CONFIGURED instanceof FastTrigMath ? 1 : 0;
+    }
+
+    /**
+     * Stores a texture traced from the image taken at the given time. Its texels must be lossless, i.e. not
+     * RGB565. It is written to a temporary file first so that a partly written texture is never loaded.
+     */
+    public static void save(ImageMetadata im, Sphere sphere, MipMap texture) {
+        int width = texture.getWidth(0);
+        int height = texture.getHeight(0);
+        TexelBuffer.Layout layout = texture.getTexels(0).getLayout();
+        File file = EarthImageLoader.getTextureFile(im, width, height);
+        File imageFile = EarthImageLoader.getImageFile(im);
+        File tempFile = new File(file.getPath() + ".tmp");
+        long bytes = HEADER_BYTES;
+        for (int level = 0; level < texture.getLevels(); level++) {
+            bytes += texture.getTexels(level).getLength() * (long) Integer.BYTES;
+        }
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                buffer.order(ByteOrder.nativeOrder());
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(layout.ordinal())
+                        .putInt(texture.getLevels()).putDouble(sphere.radius).putDouble(sphere.position.x())
+                        .putDouble(sphere.position.y()).putDouble(sphere.position.z()).putInt(getMathId())
+                        .putLong(imageFile.length()).putLong(imageFile.lastModified());
+                int offset = HEADER_BYTES;
+                for (int level = 0; level < texture.getLevels(); level++) {
+                    TexelBuffer texels = texture.getTexels(level);
+                    int length = texels.getLength();
+                    IntBuffer ints = buffer.slice(offset, length * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+                    for (int i = 0; i < length; i++) {
+                        ints.put(i, texels.getRGB(i));
+                    }
+                    offset += length * Integer.BYTES;
+                }
+                buffer.force();
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Error storing texture " + file);
+            tempFile.delete();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package earth;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits a frame into square tiles and renders them on a dedicated work stealing pool so that rendering
+ * doesn't compete with the common pool used by the texture loading futures. Tiles that don't overlap the
+ * sphere's spans are never scheduled.
+ */
+public class TileScheduler {
+
+    private static final int TILE_SIZE = Integer.getInteger("earthflow.render.tileSize", 64);
+    private static final int THREADS = Integer.getInteger("earthflow.render.threads", Runtime.getRuntime().availableProcessors());
+
+    public interface TileRenderer {
+        /**
+         * Renders the pixels in the rectangle [x0, x1) x [y0, y1)
+         */
+        void renderTile(int x0, int y0, int x1, int y1);
+    }
+
+    private final ForkJoinPool pool;
+    private final int tileSize;
+
+    public TileScheduler() {
+        this(THREADS, TILE_SIZE);
+    }
+
+    public TileScheduler(int threads, int tileSize) {
+        this.tileSize = tileSize;
+        this.pool = new ForkJoinPool(threads, (pool) -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("render-worker-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        System.out.println("Rendering with " + threads + " threads and " + tileSize + "px tiles");
+    }
+
+    /**
+     * Renders every tile that overlaps the given spans and waits for them all to complete
+     */
+    public void render(SpanTable spans, TileRenderer renderer) {
+        render(spans, 0, spans.getHeight(), renderer);
+    }
+
+    /**
+     * Renders every tile in rows [y0, y1) that overlaps the given spans and waits for them all to complete. Used
+     * to render frames too large to hold in memory at once a band at a time.
+     */
+    public void render(SpanTable spans, int y0, int y1, TileRenderer renderer) {
+        int tilesX = (spans.getWidth() + tileSize - 1) / tileSize;
+        int tilesY = (y1 - y0 + tileSize - 1) / tileSize;
+        // x0, y0, x1, y1 of each tile that needs rendering
+        int[] tiles = new int[tilesX * tilesY * 4];
+
+        int numTiles = findTiles(spans, y0, y1, tiles);
+        if (numTiles > 0) {
+            pool.invoke(new TileTask(renderer, tiles, 0, numTiles));
+        }
+    }
+
+    private int findTiles(SpanTable spans, int minY, int maxY, int[] tiles) {
+        int numTiles = 0;
+        for (int y0 = minY; y0 < maxY; y0 += tileSize) {
+            int y1 = Math.min(y0 + tileSize, maxY);
+
+            // The union of the spans in this row of tiles
+            int minX = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            for (int y = y0; y < y1; y++) {
+                if (spans.getStart(y) < spans.getEnd(y)) {
+                    minX = Math.min(minX, spans.getStart(y));
+                    maxX = Math.max(maxX, spans.getEnd(y));
+                }
+            }
+
+            for (int x0 = 0; x0 < spans.getWidth(); x0 += tileSize) {
+                int x1 = Math.min(x0 + tileSize, spans.getWidth());
+                if (x1 <= minX || x0 >= maxX) {
+                    continue;
+                }
+                tiles[numTiles * 4] = x0;
+                tiles[numTiles * 4 + 1] = y0;
+                tiles[numTiles * 4 + 2] = x1;
+                tiles[numTiles * 4 + 3] = y1;
+                numTiles++;
+            }
+        }
+        return numTiles;
+    }
+
+    private static class TileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient TileRenderer renderer;
+        private final int[] tiles;
+        private final int from;
+        private final int to;
+
+        private TileTask(TileRenderer renderer, int[] tiles, int from, int to) {
+            this.renderer = renderer;
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                renderer.renderTile(tiles[from * 4], tiles[from * 4 + 1], tiles[from * 4 + 2], tiles[from * 4 + 3]);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TileTask(renderer, tiles, from, middle), new TileTask(renderer, tiles, middle, to));
+            }
+        }
+    }
+}
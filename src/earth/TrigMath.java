@@ -0,0 +1,20 @@
+package earth;
+
+/**
+ * The trigonometric functions used to map between points on the sphere and texture coordinates. The
+ * implementation is chosen with the earthflow.math system property: "exact" (the default) uses
+ * {@link Math} and "fast" uses {@link FastTrigMath}.
+ */
+public interface TrigMath {
+
+    TrigMath CONFIGURED = "fast".equalsIgnoreCase(System.getProperty("earthflow.math", "exact"))
+            ? new FastTrigMath() : new ExactTrigMath();
+
+    double sin(double a);
+
+    double cos(double a);
+
+    double asin(double x);
+
+    double atan2(double y, double x);
+}
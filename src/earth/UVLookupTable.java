@@ -0,0 +1,85 @@
+package earth;
+
+import java.util.Arrays;
+
+/**
+ * Stores the texture (u, v) coordinate of every screen pixel that shows the lit side of the sphere.
+ * Only the seasonal tilt is baked into the table. The daily rotation is around the y axis so it can be
+ * applied each frame by adding an offset to u.
+ */
+public class UVLookupTable {
+
+    private final int width;
+    private final int height;
+    private final double rayZ;
+
+    private final float[] us;
+    private final float[] vs;
+    private final boolean[] hits;
+
+    private long tiltDay = Long.MIN_VALUE;
+    private double radius = Double.NaN;
+
+    public UVLookupTable(int width, int height, double rayZ) {
+        this.width = width;
+        this.height = height;
+        this.rayZ = rayZ;
+        us = new float[width * height];
+        vs = new float[width * height];
+        hits = new boolean[width * height];
+    }
+
+    public boolean isValid(long tiltDay, double radius) {
+        return this.tiltDay == tiltDay && this.radius == radius;
+    }
+
+    public void build(Sphere sphere, Vector3D camera, Vector3D lightDirection, SpanTable spanTable,
+                      TileScheduler scheduler, RayKernel rayKernel, GeometryContext tilt, long tiltDay) {
+        long startTime = System.currentTimeMillis();
+
+        Arrays.fill(hits, false);
+
+        RayKernel.Scene scene = new RayKernel.Scene(width, height, rayZ, camera, sphere.position, sphere.radius,
+                lightDirection, tilt.getMatrix());
+
+        scheduler.render(spanTable, (x0, y0, x1, y1) -> {
+            double[] rowUs = new double[x1 - x0];
+            double[] rowVs = new double[x1 - x0];
+            for (int y = y0; y < y1; y++) {
+                int xStart = Math.max(x0, spanTable.getStart(y));
+                int xEnd = Math.min(x1, spanTable.getEnd(y));
+                rayKernel.traceRow(scene, y, xStart, xEnd, rowUs, rowVs);
+                for (int x = xStart; x < xEnd; x++) {
+                    double u = rowUs[x - xStart];
+                    if (Double.isNaN(u)) continue;
+
+                    int i = y * width + x;
+                    us[i] = (float) u;
+                    vs[i] = (float) rowVs[x - xStart];
+                    hits[i] = true;
+                }
+            }
+        });
+
+        this.tiltDay = tiltDay;
+        this.radius = sphere.radius;
+
+        System.out.println("Built UV lookup table in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
+
+    public boolean isHit(int x, int y) {
+        return hits[y * width + x];
+    }
+
+    /**
+     * Returns the u coordinate of the given pixel scrolled by the daily rotation offset and wrapped back into [0, 1)
+     */
+    public double getU(int x, int y, double uOffset) {
+        double u = us[y * width + x] + uOffset;
+        return u - Math.floor(u);
+    }
+
+    public double getV(int x, int y) {
+        return vs[y * width + x];
+    }
+}
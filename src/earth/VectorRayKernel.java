@@ -0,0 +1,139 @@
+package earth;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Traces a whole vector of pixels at a time using the incubating Vector API. Only created by
+ * {@link RayKernel#create()} when the jdk.incubator.vector module is available, which requires running with
+ * --add-modules jdk.incubator.vector.
+ */
+public class VectorRayKernel implements RayKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final boolean FAST_MATH = TrigMath.CONFIGURED instanceof FastTrigMath;
+    private static final double HALF_PI = Math.PI / 2;
+
+    private final DoubleVector iota;
+
+    public VectorRayKernel() {
+        double[] lanes = new double[SPECIES.length()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = i;
+        }
+        iota = DoubleVector.fromArray(SPECIES, lanes, 0);
+    }
+
+    @Override
+    public void traceRow(Scene scene, int y, int xStart, int xEnd, double[] us, double[] vs) {
+        double cameraX = scene.camera().x();
+        double cameraY = scene.camera().y();
+        double cameraZ = scene.camera().z();
+        double centreX = scene.centre().x();
+        double centreY = scene.centre().y();
+        double centreZ = scene.centre().z();
+        double radius = scene.radius();
+        double rayZ = scene.rayZ();
+        double[] m = scene.rotation();
+
+        double y3d = (double) (scene.height() - y) / (scene.height() / 2.0) - 1;
+
+        double rayToCentreX = centreX - cameraX;
+        double rayToCentreY = centreY - cameraY;
+        double rayToCentreZ = centreZ - cameraZ;
+        double rayToCentreLength2 = rayToCentreX * rayToCentreX + rayToCentreY * rayToCentreY + rayToCentreZ * rayToCentreZ;
+
+        int count = xEnd - xStart;
+        if (count <= 0) {
+            return;
+        }
+        int vectorCount = SPECIES.loopBound(count);
+        for (int i = 0; i < vectorCount; i += SPECIES.length()) {
+            DoubleVector x3d = iota.add(xStart + i).sub(scene.width() / 2.0).div(scene.height() / 2.0);
+            DoubleVector rayLength = x3d.mul(x3d).add(y3d * y3d + rayZ * rayZ).sqrt();
+            DoubleVector unitRayX = x3d.div(rayLength);
+            DoubleVector unitRayY = DoubleVector.broadcast(SPECIES, y3d).div(rayLength);
+            DoubleVector unitRayZ = DoubleVector.broadcast(SPECIES, rayZ).div(rayLength);
+
+            DoubleVector rayComponent = unitRayX.mul(rayToCentreX).add(unitRayY.mul(rayToCentreY)).add(unitRayZ.mul(rayToCentreZ));
+            DoubleVector distanceFromCentre2 = rayComponent.mul(rayComponent).neg().add(rayToCentreLength2);
+            VectorMask<Double> hit = distanceFromCentre2.compare(VectorOperators.LE, radius * radius);
+            if (!hit.anyTrue()) {
+                DoubleVector.broadcast(SPECIES, Double.NaN).intoArray(us, i);
+                DoubleVector.broadcast(SPECIES, Double.NaN).intoArray(vs, i);
+                continue;
+            }
+
+            DoubleVector distance = rayComponent.sub(distanceFromCentre2.neg().add(radius * radius).sqrt());
+
+            DoubleVector pointX = unitRayX.mul(distance).add(cameraX);
+            DoubleVector pointY = unitRayY.mul(distance).add(cameraY);
+            DoubleVector pointZ = unitRayZ.mul(distance).add(cameraZ);
+            DoubleVector normalX = pointX.sub(centreX).div(radius);
+            DoubleVector normalY = pointY.sub(centreY).div(radius);
+            DoubleVector normalZ = pointZ.sub(centreZ).div(radius);
+
+            DoubleVector normalDotCamera = normalX.mul(pointX.sub(cameraX))
+                    .add(normalY.mul(pointY.sub(cameraY)))
+                    .add(normalZ.mul(pointZ.sub(cameraZ)));
+            DoubleVector normalDotLight = normalX.mul(scene.lightDirection().x())
+                    .add(normalY.mul(scene.lightDirection().y()))
+                    .add(normalZ.mul(scene.lightDirection().z()));
+            VectorMask<Double> visible = hit
+                    .and(normalDotCamera.compare(VectorOperators.LE, 0))
+                    .and(normalDotLight.compare(VectorOperators.GE, -1))
+                    .and(normalDotLight.compare(VectorOperators.LE, 0));
+
+            DoubleVector normalLength = normalX.mul(normalX).add(normalY.mul(normalY)).add(normalZ.mul(normalZ)).sqrt();
+            DoubleVector dx = normalX.div(normalLength);
+            DoubleVector dy = normalY.div(normalLength);
+            DoubleVector dz = normalZ.div(normalLength);
+
+            DoubleVector rx = dx.mul(m[0]).add(dy.mul(m[1])).add(dz.mul(m[2]));
+            DoubleVector ry = dx.mul(m[3]).add(dy.mul(m[4])).add(dz.mul(m[5]));
+            DoubleVector rz = dx.mul(m[6]).add(dy.mul(m[7])).add(dz.mul(m[8]));
+
+            DoubleVector u;
+            DoubleVector v;
+            if (FAST_MATH) {
+                u = fastAtan2(rz, rx).div(Math.PI * 2).add(0.5);
+                v = fastAsin(ry).div(Math.PI).add(0.5);
+            } else {
+                u = rz.lanewise(VectorOperators.ATAN2, rx).div(Math.PI * 2).add(0.5);
+                v = ry.lanewise(VectorOperators.ASIN).div(Math.PI).add(0.5);
+            }
+
+            u.blend(Double.NaN, visible.not()).intoArray(us, i);
+            v.blend(Double.NaN, visible.not()).intoArray(vs, i);
+        }
+
+        ScalarRayKernel.traceRow(scene, y, xStart + vectorCount, xEnd, us, vs, vectorCount);
+    }
+
+    /**
+     * {@link FastTrigMath#asin(double)} of each lane, with the same operations in the same order so that the
+     * results are the same as the scalar kernel's
+     */
+    private static DoubleVector fastAsin(DoubleVector x) {
+        return fastAtan2(x, x.mul(x).neg().add(1).max(0).sqrt());
+    }
+
+    /**
+     * {@link FastTrigMath#atan2(double, double)} of each lane
+     */
+    private static DoubleVector fastAtan2(DoubleVector y, DoubleVector x) {
+        DoubleVector absX = x.abs();
+        DoubleVector absY = y.abs();
+        VectorMask<Double> swap = absY.compare(VectorOperators.GT, absX);
+        DoubleVector t = absY.blend(absX, swap).div(absX.blend(absY, swap));
+        DoubleVector t2 = t.mul(t);
+        DoubleVector angle = t.mul(t2.mul(-0.01172120).add(0.05265332).mul(t2).add(-0.11643287).mul(t2).add(0.19354346)
+                .mul(t2).add(-0.33262347).mul(t2).add(0.99997726));
+        angle = angle.blend(angle.neg().add(HALF_PI), swap);
+        angle = angle.blend(angle.neg().add(Math.PI), x.compare(VectorOperators.LT, 0));
+        angle = angle.blend(angle.neg(), y.compare(VectorOperators.LT, 0));
+        return angle.blend(0, absX.compare(VectorOperators.EQ, 0).and(absY.compare(VectorOperators.EQ, 0)));
+    }
+}
@@ -0,0 +1,94 @@
+package earth;
+
+/**
+ * The columns of each row of an equirectangular texture that face the camera when a source image was taken. In
+ * row vy a texel faces the camera when a * cos(longitude) + b * sin(longitude) + c <= 0 for terms a, b, c that
+ * depend only on the row, which holds over a single range of longitudes that can wrap around the texture's edge.
+ * The ranges are widened by a couple of columns so that they always contain every texel facing the camera.
+ */
+public class VisibleRegion {
+
+    private static final int MARGIN = 2;
+
+    private final int width;
+    private final int[] starts;
+    private final int[] lengths;
+
+    /**
+     * @param rotation the rotation from the texture's coordinates to the image's, as applied to each texel's direction
+     */
+    public VisibleRegion(GeometryContext rotation, TextureDirections directions, int width, int height) {
+        this.width = width;
+        starts = new int[height];
+        lengths = new int[height];
+
+        for (int vy = 0; vy < height; vy++) {
+            // The z component of the rotated direction in terms of the longitude
+            double cosLatitude = directions.getCosLatitude(vy);
+            double sinLatitude = directions.getY(vy);
+            double a = rotation.rotateZ(cosLatitude, 0, 0);
+            double b = rotation.rotateZ(0, 0, cosLatitude);
+            double c = rotation.rotateZ(0, sinLatitude, 0);
+
+            // a * cos(longitude) + b * sin(longitude) = r * cos(longitude - peak)
+            double r = Math.sqrt(a * a + b * b);
+            double threshold = r == 0 ? (c <= 0 ? 1 : -1) : -c / r;
+            if (threshold >= 1) {
+                starts[vy] = 0;
+                lengths[vy] = width;
+                continue;
+            }
+            if (threshold < -1 - 1e-6) {
+                continue;
+            }
+            // Visible within halfAngle of the longitude pointing away from the peak
+            double centre = Math.atan2(b, a) + Math.PI;
+            double halfAngle = Math.PI - Math.acos(Math.max(threshold, -1));
+
+            // Longitude = 2 * PI * (u - 0.5) so u = longitude / (2 * PI) + 0.5
+            double columnsPerRadian = width / (Math.PI * 2);
+            int start = (int) Math.floor((centre - halfAngle) * columnsPerRadian + width / 2.0) - MARGIN;
+            int end = (int) Math.ceil((centre + halfAngle) * columnsPerRadian + width / 2.0) + MARGIN;
+            if (end - start >= width) {
+                starts[vy] = 0;
+                lengths[vy] = width;
+            } else {
+                starts[vy] = Math.floorMod(start, width);
+                lengths[vy] = end - start;
+            }
+        }
+    }
+
+    /**
+     * The first column of the visible range of row vy. The range continues from column 0 if it runs off the right
+     * edge of the texture.
+     */
+    public int getStart(int vy) {
+        return starts[vy];
+    }
+
+    /**
+     * The number of columns in the visible range of row vy, which is 0 if none of the row is visible
+     */
+    public int getLength(int vy) {
+        return lengths[vy];
+    }
+
+    /**
+     * Whether column ux of row vy is within the visible range
+     */
+    public boolean contains(int ux, int vy) {
+        return Math.floorMod(ux - starts[vy], width) < lengths[vy];
+    }
+
+    /**
+     * The number of texels in all the visible ranges
+     */
+    public long getArea() {
+        long area = 0;
+        for (int length : lengths) {
+            area += length;
+        }
+        return area;
+    }
+}
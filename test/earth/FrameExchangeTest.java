@@ -0,0 +1,48 @@
+package earth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class FrameExchangeTest {
+
+    /**
+     * Publishes and swaps as fast as possible on two threads. Waking the parked presenter often lets it take a
+     * frame before the render thread has taken the last buffer handed back. Checks all three buffers still go
+     * round afterwards.
+     */
+    @Test
+    public void testNoBufferIsLost() throws InterruptedException {
+        FrameExchange exchange = new FrameExchange(new FrameBuffer(1, 1));
+        FrameBuffer[] back = {new FrameBuffer(1, 1)};
+        FrameBuffer[] front = {new FrameBuffer(1, 1)};
+        AtomicBoolean done = new AtomicBoolean();
+
+        Thread presenter = new Thread(() -> {
+            while (!done.get()) {
+                front[0] = exchange.swap(front[0], 1, TimeUnit.MILLISECONDS);
+            }
+        });
+        Thread renderer = new Thread(() -> {
+            for (int i = 0; i < 50_000; i++) {
+                back[0] = exchange.publish(back[0]);
+            }
+        });
+        presenter.start();
+        renderer.start();
+        renderer.join(30_000);
+        done.set(true);
+        presenter.join(30_000);
+
+        // The third buffer is either waiting to be presented or handed back, either way the next publish gets it
+        FrameBuffer third = assertTimeoutPreemptively(Duration.ofSeconds(1), () -> exchange.publish(back[0]));
+        assertEquals(3, new HashSet<>(List.of(back[0], front[0], third)).size());
+    }
+}
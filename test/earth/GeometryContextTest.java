@@ -0,0 +1,49 @@
+package earth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GeometryContextTest {
+
+    private final Sphere sphere = new Sphere(new Vector3D(0, 0, 1000000), 6378);
+
+    @Test
+    public void testMatchesQuaternionRotation() {
+        OffsetDateTime dateTime = OffsetDateTime.of(2022, 6, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        for (int i = 0; i < 100; i++) {
+            dateTime = dateTime.plusMinutes(7919);
+            double[] expected = sphere.getRotation(dateTime).toMatrix();
+            double[] actual = GeometryContext.at(dateTime.toEpochSecond()).getMatrix();
+            assertArrayEquals(expected, actual, 1e-12, dateTime.toString());
+
+            assertArrayEquals(sphere.getSeasonalTilt(dateTime).toMatrix(),
+                    GeometryContext.seasonalTilt(dateTime.toEpochSecond()).getMatrix(), 1e-12, dateTime.toString());
+        }
+    }
+
+    @Test
+    public void testThenMatchesQuaternionMultiply() {
+        OffsetDateTime frameTime = OffsetDateTime.of(2023, 1, 19, 0, 3, 42, 0, ZoneOffset.UTC);
+        OffsetDateTime imageTime = OffsetDateTime.of(2023, 1, 18, 22, 51, 18, 0, ZoneOffset.UTC);
+        double[] expected = sphere.getRotation(frameTime).multiply(sphere.getRotation(imageTime).inverse()).toMatrix();
+        double[] actual = GeometryContext.at(frameTime.toEpochSecond())
+                .then(GeometryContext.at(imageTime.toEpochSecond()).inverse()).getMatrix();
+        assertArrayEquals(expected, actual, 1e-12);
+    }
+
+    @Test
+    public void testRotateMatchesRotatePoint() {
+        OffsetDateTime dateTime = OffsetDateTime.of(2023, 3, 4, 5, 6, 7, 0, ZoneOffset.UTC);
+        GeometryContext geometry = GeometryContext.at(dateTime.toEpochSecond());
+        Vector3D p = new Vector3D(0.3, -0.5, 0.8).unit();
+        Vector3D expected = sphere.getRotation(dateTime).rotatePoint(p);
+        assertEquals(expected.x(), geometry.rotateX(p.x(), p.y(), p.z()), 1e-12);
+        assertEquals(expected.y(), geometry.rotateY(p.x(), p.y(), p.z()), 1e-12);
+        assertEquals(expected.z(), geometry.rotateZ(p.x(), p.y(), p.z()), 1e-12);
+    }
+}
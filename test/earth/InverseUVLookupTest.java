@@ -2,7 +2,10 @@ package earth;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class InverseUVLookupTest {
 
@@ -39,4 +42,62 @@ public class InverseUVLookupTest {
             assertEquals(d.z(), dz, 1e-8);
         }
     }
+
+    @Test
+    public void testFastMathFunctionErrors() {
+        TrigMath fast = new FastTrigMath();
+        Random random = new Random(42);
+        double maxError = 0;
+        for (int i = 0; i < 1000000; i++) {
+            double a = (random.nextDouble() * 2 - 1) * 4 * Math.PI;
+            double x = random.nextDouble() * 2 - 1;
+            double y = random.nextDouble() * 2 - 1;
+
+            maxError = Math.max(maxError, Math.abs(fast.sin(a) - Math.sin(a)));
+            maxError = Math.max(maxError, Math.abs(fast.cos(a) - Math.cos(a)));
+            maxError = Math.max(maxError, Math.abs(fast.asin(x) - Math.asin(x)));
+            maxError = Math.max(maxError, Math.abs(fast.atan2(y, x) - Math.atan2(y, x)));
+        }
+        assertTrue(maxError < FastTrigMath.MAX_ERROR, "Max fast math error " + maxError);
+    }
+
+    @Test
+    public void testFastMathUVLookupWithinOneTexel() {
+        TrigMath fast = new FastTrigMath();
+        int textureWidth = 4096;
+        int textureHeight = 2048;
+        double texelAngle = Math.PI * 2 / textureWidth;
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100000; i++) {
+
+            double x1 = random.nextDouble() * 2 - 1;
+            double y1 = random.nextDouble() * 2 - 1;
+            double z1 = random.nextDouble() * 2 - 1;
+            Vector3D d = new Vector3D(x1, y1, z1).unit();
+
+            double u = 0.5 + Math.atan2(d.z(), d.x()) / (Math.PI * 2);
+            double v = 0.5 + Math.asin(d.y()) / Math.PI;
+
+            double fastU = 0.5 + fast.atan2(d.z(), d.x()) / (Math.PI * 2);
+            double fastV = 0.5 + fast.asin(d.y()) / Math.PI;
+
+            // Compare the wrapped difference in u so that points either side of the seam aren't a full turn apart
+            double du = Math.abs(fastU - u);
+            du = Math.min(du, 1 - du);
+            assertTrue(du * textureWidth < 1, "u out by " + du * textureWidth + " texels");
+            assertTrue(Math.abs(fastV - v) * textureHeight < 1, "v out by " + Math.abs(fastV - v) * textureHeight + " texels");
+
+            double PI = Math.PI;
+
+            double dx = fast.cos(PI * (0.5 - fastV)) * fast.cos(2 * PI * (fastU - 0.5));
+            double dy = fast.sin(PI * (fastV - 0.5));
+            double dz = fast.cos(PI * (0.5 - fastV)) * fast.sin(2 * PI * (fastU - 0.5));
+
+            // The round trip must land within one texel's angle of the original direction
+            assertEquals(d.x(), dx, texelAngle);
+            assertEquals(d.y(), dy, texelAngle);
+            assertEquals(d.z(), dz, texelAngle);
+        }
+    }
 }
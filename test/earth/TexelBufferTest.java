@@ -0,0 +1,51 @@
+package earth;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TexelBufferTest {
+
+    private final int[] pixels = new Random(42).ints(1000, 0, 0x1000000).toArray();
+
+    @Test
+    public void testRGB24IsLossless() {
+        TexelBuffer texels = TexelBuffer.pack(pixels, pixels.length, 1, TexelBuffer.Format.RGB24, TexelBuffer.Layout.ROW_MAJOR);
+        for (int i = 0; i < pixels.length; i++) {
+            assertEquals(pixels[i], texels.getRGB(i));
+        }
+        assertEquals(pixels.length * 3L, texels.getBytes());
+    }
+
+    @Test
+    public void testRGB565KeepsTheTopBitsOfEachChannel() {
+        TexelBuffer texels = TexelBuffer.pack(new int[]{0xffffff, 0}, 2, 1, TexelBuffer.Format.RGB565, TexelBuffer.Layout.ROW_MAJOR);
+        assertEquals(0xffffff, texels.getRGB(0));
+        assertEquals(0, texels.getRGB(1));
+
+        texels = TexelBuffer.pack(pixels, pixels.length, 1, TexelBuffer.Format.RGB565, TexelBuffer.Layout.ROW_MAJOR);
+        for (int i = 0; i < pixels.length; i++) {
+            int rgb = texels.getRGB(i);
+            assertTrue(Math.abs((rgb >> 16) - (pixels[i] >> 16)) <= 7);
+            assertTrue(Math.abs(((rgb >> 8) & 0xff) - ((pixels[i] >> 8) & 0xff)) <= 3);
+            assertTrue(Math.abs((rgb & 0xff) - (pixels[i] & 0xff)) <= 7);
+        }
+    }
+
+    @Test
+    public void testBlockedLayoutMatchesRowMajor() {
+        // Not a multiple of the block size so the edge blocks are padded
+        int width = 100;
+        int height = 10;
+        TexelBuffer rowMajor = TexelBuffer.pack(pixels, width, height, TexelBuffer.Format.INT_RGB, TexelBuffer.Layout.ROW_MAJOR);
+        TexelBuffer blocked = TexelBuffer.pack(pixels, width, height, TexelBuffer.Format.RGB24, TexelBuffer.Layout.BLOCKED);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(rowMajor.getRGB(rowMajor.indexOf(x, y)), blocked.getRGB(blocked.indexOf(x, y)));
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package earth;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the texel layouts. Run on its own rather than with the tests as it takes a few seconds and only
+ * prints timings.
+ */
+public class TexelLayoutBenchmark {
+
+    // Keeps the sampled colours alive so the benchmark loop isn't optimised away
+    private static int checksum;
+
+    /**
+     * Times sampling a 4096x2048 texture in each layout for globes of different sizes on screen, both from the
+     * full size level and from the mip level matching each pixel's footprint
+     */
+    public static void main(String[] args) {
+        Sphere sphere = EarthRenderer.createSphere();
+        sphere.update(OffsetDateTime.of(2023, 1, 19, 0, 3, 42, 0, ZoneOffset.UTC));
+        int[] texture = new Random(42).ints(4096 * 2048, 0, 0x1000000).toArray();
+        MipMap rowMajor = new MipMap(texture, 4096, 2048, TexelBuffer.Format.INT_RGB, TexelBuffer.Layout.ROW_MAJOR);
+        MipMap blocked = new MipMap(texture, 4096, 2048, TexelBuffer.Format.INT_RGB, TexelBuffer.Layout.BLOCKED);
+
+        for (int size : new int[]{256, 512, 1024, 2048}) {
+            RenderSettings settings = new RenderSettings(size, size, RenderSettings.DEFAULT_FOV);
+            Vector3D camera = new Vector3D(0, 0, 0);
+            SpanTable spanTable = new SpanTable(size, size, settings.rayZ());
+            spanTable.build(sphere, camera);
+            FootprintTable footprintTable = new FootprintTable(size, size, settings.rayZ());
+            footprintTable.build(sphere, camera);
+            RayKernel.Scene scene = new RayKernel.Scene(size, size, settings.rayZ(), camera, sphere.position,
+                    sphere.radius, new Vector3D(0, 0, 1), sphere.getRotationMatrix());
+
+            // Trace the pixels once so that only the sampling is timed
+            double[] us = new double[size * size];
+            double[] vs = new double[size * size];
+            double[] rowUs = new double[size];
+            double[] rowVs = new double[size];
+            RayKernel rayKernel = new ScalarRayKernel();
+            for (int y = 0; y < size; y++) {
+                int start = spanTable.getStart(y);
+                int end = spanTable.getEnd(y);
+                Arrays.fill(us, y * size, y * size + size, Double.NaN);
+                rayKernel.traceRow(scene, y, start, end, rowUs, rowVs);
+                System.arraycopy(rowUs, 0, us, y * size + start, end - start);
+                System.arraycopy(rowVs, 0, vs, y * size + start, end - start);
+            }
+
+            for (boolean mipMaps : new boolean[]{false, true}) {
+                long rowMajorNanos = Long.MAX_VALUE;
+                long blockedNanos = Long.MAX_VALUE;
+                for (int run = 0; run < 5; run++) {
+                    rowMajorNanos = Math.min(rowMajorNanos, sample(sphere, rowMajor, footprintTable, mipMaps, size, us, vs));
+                    blockedNanos = Math.min(blockedNanos, sample(sphere, blocked, footprintTable, mipMaps, size, us, vs));
+                }
+                System.out.printf("%dx%d %s: row major %.2f ms, blocked %.2f ms%n", size, size,
+                        mipMaps ? "mip mapped" : "full size", rowMajorNanos / 1e6, blockedNanos / 1e6);
+            }
+        }
+    }
+
+    private static long sample(Sphere sphere, MipMap mipMap, FootprintTable footprintTable, boolean mipMaps, int size,
+                               double[] us, double[] vs) {
+        long startTime = System.nanoTime();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int i = y * size + x;
+                if (!Double.isNaN(us[i])) {
+                    int level = mipMaps ? mipMap.getLevel(footprintTable.getFootprint(x, y)) : 0;
+                    checksum += sphere.getTextureRGB(us[i], vs[i], mipMap, mipMap, level, 0.5);
+                }
+            }
+        }
+        return System.nanoTime() - startTime;
+    }
+}
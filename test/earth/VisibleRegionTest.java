@@ -0,0 +1,34 @@
+package earth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VisibleRegionTest {
+
+    @Test
+    public void testContainsEveryTexelFacingTheCamera() {
+        int width = 512;
+        int height = 256;
+        TextureDirections directions = TextureDirections.forSize(width, height);
+        OffsetDateTime dateTime = OffsetDateTime.of(2023, 1, 19, 0, 3, 42, 0, ZoneOffset.UTC);
+        for (int i = 0; i < 50; i++) {
+            dateTime = dateTime.plusMinutes(4099);
+            GeometryContext rotation = GeometryContext.at(dateTime.toEpochSecond()).inverse();
+            VisibleRegion region = new VisibleRegion(rotation, directions, width, height);
+            for (int vy = 0; vy < height; vy++) {
+                for (int ux = 0; ux < width; ux++) {
+                    double z = rotation.rotateZ(directions.getX(ux, vy), directions.getY(vy), directions.getZ(ux, vy));
+                    if (z <= 0) {
+                        assertTrue(region.contains(ux, vy), dateTime + " " + ux + "," + vy);
+                    }
+                }
+            }
+            // Only a little more than the visible hemisphere is traced
+            assertTrue(region.getArea() < width * height * 0.55, dateTime + " area " + region.getArea());
+        }
+    }
+}